@@ -0,0 +1,34 @@
+package com.sageserpent.americium.java;
+
+/**
+ * A {@link CaseFactory} whose input domain fits in an {@code int}.
+ */
+public abstract class IntCaseFactory<Case> extends LongCaseFactory<Case> {
+    public abstract Case apply(int input);
+
+    public abstract int lowerBoundIntInput();
+
+    public abstract int upperBoundIntInput();
+
+    public abstract int maximallyShrunkIntInput();
+
+    @Override
+    public Case apply(long input) {
+        return apply(Math.toIntExact(input));
+    }
+
+    @Override
+    public long lowerBoundLongInput() {
+        return lowerBoundIntInput();
+    }
+
+    @Override
+    public long upperBoundLongInput() {
+        return upperBoundIntInput();
+    }
+
+    @Override
+    public long maximallyShrunkLongInput() {
+        return maximallyShrunkIntInput();
+    }
+}
@@ -0,0 +1,37 @@
+package com.sageserpent.americium.java;
+
+import java.math.BigInteger;
+
+/**
+ * A {@link CaseFactory} whose input domain fits in a {@code long}; this allows
+ * cases to be streamed without going through {@link BigInteger} arithmetic.
+ */
+public abstract class LongCaseFactory<Case> extends CaseFactory<Case> {
+    public abstract Case apply(long input);
+
+    public abstract long lowerBoundLongInput();
+
+    public abstract long upperBoundLongInput();
+
+    public abstract long maximallyShrunkLongInput();
+
+    @Override
+    public Case apply(BigInteger input) {
+        return apply(input.longValueExact());
+    }
+
+    @Override
+    public BigInteger lowerBoundInput() {
+        return BigInteger.valueOf(lowerBoundLongInput());
+    }
+
+    @Override
+    public BigInteger upperBoundInput() {
+        return BigInteger.valueOf(upperBoundLongInput());
+    }
+
+    @Override
+    public BigInteger maximallyShrunkInput() {
+        return BigInteger.valueOf(maximallyShrunkLongInput());
+    }
+}
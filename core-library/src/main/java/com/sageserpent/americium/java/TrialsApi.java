@@ -219,6 +219,22 @@ public interface TrialsApi {
      */
     <Case> Trials<Case> stream(CaseFactory<Case> caseFactory);
 
+    /**
+     * Produce a trials instance that stream cases from a factory whose input
+     * domain fits in a {@code long}.
+     * <p>
+     * This behaves just like the overload taking a plain {@link
+     * CaseFactory}, but the factory is driven with primitive inputs.
+     *
+     * @param caseFactory Pure (in other words, stateless) function that
+     *                    produces a {@link Case} from a long value; see the
+     *                    overload taking a plain {@link CaseFactory} for what
+     *                    is expected of it. Use an {@link IntCaseFactory} if
+     *                    the input domain fits in an {@code int}.
+     * @return A {@link Trials} instance.
+     */
+    <Case> Trials<Case> stream(LongCaseFactory<Case> caseFactory);
+
     /**
      * Produce a trials instance that stream cases from a factory.
      * <p>
@@ -276,6 +292,16 @@ public interface TrialsApi {
     Trials<Double> doubles(double lowerBound, double upperBound,
                            double shrinkageTarget);
 
+    /**
+     * Produce a trials instance that mostly yields finite doubles of either
+     * sign spread across all magnitudes, shrinking down to zero via the
+     * subnormals, but also yields special values: positive and negative zero,
+     * subnormals, infinities and NaN.
+     *
+     * @return A {@link Trials} instance.
+     */
+    Trials<Double> doublesWithSpecialValues();
+
     Trials<BigDecimal> bigDecimals(BigDecimal lowerBound,
                                    BigDecimal upperBound);
 
@@ -1,7 +1,51 @@
 package com.sageserpent.americium.java;
 
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
 public interface TrialsDefaults {
     int defaultComplexityLimit = 100;
 
     int defaultShrinkageAttemptsLimit = 100;
+
+    RandomGeneratorFactory<RandomGenerator> defaultRandomGeneratorFactory =
+            RandomGeneratorFactory.of("L64X128MixRandom");
+
+    /**
+     * Generates the same cases for a given seed as releases prior to the
+     * introduction of {@link #defaultRandomGeneratorFactory}.
+     */
+    RandomGeneratorFactory<RandomGenerator> legacyRandomGeneratorFactory =
+            RandomGeneratorFactory.of("Random");
+
+    /**
+     * Detects duplicate cases exactly, forgetting the cases seen so far
+     * whenever the interning of decision stages starts afresh.
+     */
+    String exactDuplicateDetection = "exact";
+
+    /**
+     * Detects duplicate cases via a fixed-size table of fingerprints; once
+     * full, older fingerprints are displaced and forgotten, so duplicates of
+     * those cases are missed.
+     */
+    String hashSetDuplicateDetection = "hashSet";
+
+    /**
+     * Detects duplicate cases via a Bloom filter; this can mistake a novel
+     * case for a duplicate, so that case is skipped.
+     */
+    String bloomFilterDuplicateDetection = "bloomFilter";
+
+    /**
+     * Used unless overridden via the Java property {@code
+     * trials.duplicateDetection}.
+     */
+    String defaultDuplicateDetection = exactDuplicateDetection;
+
+    /**
+     * Used unless overridden via the Java property {@code
+     * trials.duplicateDetectionBudgetBytes}.
+     */
+    int defaultDuplicateDetectionBudgetInBytes = 1 << 24;
 }
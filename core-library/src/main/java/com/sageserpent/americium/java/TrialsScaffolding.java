@@ -12,6 +12,8 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 public interface TrialsScaffolding<Case,
         SupplySyntaxType extends TrialsScaffolding.SupplyToSyntax<Case>>
@@ -149,6 +151,67 @@ public interface TrialsScaffolding<Case,
          */
         SupplyToSyntax<Case> withValidTrialsCheck(boolean enabled);
 
+        /**
+         * Configures how many trials may be run concurrently by {@link
+         * SupplyToSyntax#supplyTo(Consumer)}.
+         * <p>
+         * Cases are generated in the same order as for sequential supply, but
+         * {@code consumer} is run on batches of up to {@code parallelism}
+         * cases using a bounded pool of threads. If any trial fails, supply
+         * falls back to sequential execution, reusing the outcomes of trials
+         * already run, so shrinkage proceeds exactly as it would do
+         * sequentially and the resulting {@link TrialException} has the same
+         * recipe.
+         *
+         * @param parallelism The maximum number of concurrently running
+         *                    trials; must be at least one.
+         * @apiNote The default is one, so supply is sequential. Only {@link
+         * SupplyToSyntax#supplyTo(Consumer)} is affected - {@link
+         * SupplyToSyntax#asIterator()} and {@link
+         * SupplyToSyntax#testIntegrationContexts()} always yield cases one at
+         * a time. When running in parallel, {@code consumer} must be safe to
+         * call from several threads at once, and should behave
+         * deterministically for a given case.
+         */
+        SupplyToSyntax<Case> withParallelism(int parallelism);
+
+        /**
+         * Configures the algorithm used to generate random decisions when
+         * supplying cases; a generator is created from {@code
+         * randomGeneratorFactory} using the seed each time cases are supplied.
+         *
+         * @param randomGeneratorFactory Creates the random generator from the
+         *                               seed.
+         * @apiNote The default is {@link
+         * TrialsDefaults#defaultRandomGeneratorFactory}; use {@link
+         * TrialsDefaults#legacyRandomGeneratorFactory} to generate the same
+         * cases for a given seed as older releases did. Recipes don't depend
+         * on the random generator, so they reproduce cases regardless.
+         */
+        SupplyToSyntax<Case> withRandomGeneratorFactory(
+                RandomGeneratorFactory<? extends RandomGenerator>
+                        randomGeneratorFactory);
+
+        /**
+         * Configures how cases already supplied are detected, so that they
+         * aren't supplied again.
+         *
+         * @param duplicateDetection One of {@link
+         *                           TrialsDefaults#exactDuplicateDetection},
+         *                           {@link TrialsDefaults#hashSetDuplicateDetection}
+         *                           or {@link
+         *                           TrialsDefaults#bloomFilterDuplicateDetection}.
+         * @param budgetInBytes      The memory that duplicate detection may
+         *                           use; must be positive.
+         * @apiNote The defaults are {@link
+         * TrialsDefaults#defaultDuplicateDetection} and {@link
+         * TrialsDefaults#defaultDuplicateDetectionBudgetInBytes}, unless
+         * overridden by the Java properties {@code trials.duplicateDetection}
+         * and {@code trials.duplicateDetectionBudgetBytes}.
+         */
+        SupplyToSyntax<Case> withDuplicateDetection(String duplicateDetection,
+                                                    int budgetInBytes);
+
         /**
          * Consume trial cases until either there are no more or an exception
          * is thrown by {@code consumer}. If an exception is thrown, attempts
@@ -0,0 +1,21 @@
+package com.sageserpent.americium
+
+/** A [[CaseFactory]] whose input domain fits in an `Int`.
+  */
+trait IntCaseFactory[+Case] extends LongCaseFactory[Case] {
+  def apply(input: Int): Case
+
+  def lowerBoundIntInput: Int
+
+  def upperBoundIntInput: Int
+
+  def maximallyShrunkIntInput: Int
+
+  override def apply(input: Long): Case = apply(Math.toIntExact(input))
+
+  override def lowerBoundLongInput: Long = lowerBoundIntInput
+
+  override def upperBoundLongInput: Long = upperBoundIntInput
+
+  override def maximallyShrunkLongInput: Long = maximallyShrunkIntInput
+}
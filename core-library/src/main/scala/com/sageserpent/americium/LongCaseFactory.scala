@@ -0,0 +1,22 @@
+package com.sageserpent.americium
+
+/** A [[CaseFactory]] whose input domain fits in a `Long`; this allows cases to
+  * be streamed without going through `BigInt` arithmetic.
+  */
+trait LongCaseFactory[+Case] extends CaseFactory[Case] {
+  def apply(input: Long): Case
+
+  def lowerBoundLongInput: Long
+
+  def upperBoundLongInput: Long
+
+  def maximallyShrunkLongInput: Long
+
+  override def apply(input: BigInt): Case = apply(input.bigInteger.longValueExact)
+
+  override def lowerBoundInput: BigInt = lowerBoundLongInput
+
+  override def upperBoundInput: BigInt = upperBoundLongInput
+
+  override def maximallyShrunkInput: BigInt = maximallyShrunkLongInput
+}
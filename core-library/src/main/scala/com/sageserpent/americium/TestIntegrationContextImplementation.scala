@@ -9,6 +9,12 @@ case class TestIntegrationContextImplementation[Case](
     caze: Case,
     caseFailureReporting: CaseFailureReporting,
     inlinedCaseFiltration: InlinedCaseFiltration,
-    isPartOfShrinkage: Boolean,
-    recipe: String
-) extends TestIntegrationContext[Case]
+    isPartOfShrinkage: Boolean
+)(recipeRendering: () => String, recipeHashRendering: () => String)
+    extends TestIntegrationContext[Case] {
+  // Rendering a recipe is expensive and it is only needed when a trial fails
+  // or when a test is to be replayed, so defer it until asked for.
+  override lazy val recipe: String = recipeRendering()
+
+  override lazy val recipeHash: String = recipeHashRendering()
+}
@@ -198,6 +198,22 @@ trait TrialsApi {
     */
   def stream[Case](factory: CaseFactory[Case]): Trials[Case]
 
+  /** Produce a trials instance that stream cases from a factory whose input
+    * domain fits in a `Long`.
+    *
+    * This behaves just like the overload taking a plain [[CaseFactory]], but
+    * the factory is driven with primitive inputs.
+    *
+    * @param factory
+    *   Pure (in other words, stateless) function that produces a {@code Case}
+    *   from a long value; see the overload taking a plain [[CaseFactory]] for
+    *   what is expected of it. Use an [[IntCaseFactory]] if the input domain
+    *   fits in an `Int`.
+    * @return
+    *   A [[Trials]] instance.
+    */
+  def stream[Case](factory: LongCaseFactory[Case]): Trials[Case]
+
   /** Produce a trials instance that stream cases from a factory.
     *
     * This is used where we want to generate a supposedly potentially unbounded
@@ -265,6 +281,16 @@ trait TrialsApi {
       shrinkageTarget: Double
   ): Trials[Double]
 
+  /** Produce a trials instance that mostly yields finite doubles of either
+    * sign spread across all magnitudes, shrinking down to zero via the
+    * subnormals, but also yields special values: positive and negative zero,
+    * subnormals, infinities and NaN.
+    *
+    * @return
+    *   A [[Trials]] instance.
+    */
+  def doublesWithSpecialValues: Trials[Double]
+
   def bigDecimals(
       lowerBound: BigDecimal,
       upperBound: BigDecimal
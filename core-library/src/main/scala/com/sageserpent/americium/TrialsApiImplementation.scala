@@ -10,9 +10,11 @@ import com.sageserpent.americium.{
 }
 
 import _root_.java.time.Instant
-import scala.collection.immutable.SortedMap
+import scala.collection.immutable.ArraySeq
 
 class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
+  import TrialsApiImplementation.*
+
   override def delay[Case](
       delayed: => ScalaTrials[Case]
   ): TrialsImplementation[Case] = {
@@ -39,9 +41,9 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
       choices: Iterable[(Int, Case)]
   ): TrialsImplementation[Case] =
     new TrialsImplementation(
-      Choice(choices.filter(0 != _._1).unzip match {
+      choices.filter(0 != _._1).unzip match {
         case (weights, plainChoices) =>
-          SortedMap.from(
+          WeightedChoice(
             weights
               .scanLeft(0) {
                 case (_, weight) if 0 > weight =>
@@ -53,9 +55,10 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
                   cumulativeWeight + weight
               }
               .drop(1)
-              .zip(plainChoices)
+              .to(ArraySeq),
+            plainChoices.toIndexedSeq
           )
-      })
+      }
     )
 
   override def alternate[Case](
@@ -98,11 +101,11 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
   }
 
   override def bytes: TrialsImplementation[Byte] =
-    stream(new CaseFactory[Byte] {
-      override def apply(input: BigInt): Byte   = input.toByte
-      override def lowerBoundInput: BigInt      = Byte.MinValue
-      override def upperBoundInput: BigInt      = Byte.MaxValue
-      override def maximallyShrunkInput: BigInt = 0
+    stream(new IntCaseFactory[Byte] {
+      override def apply(input: Int): Byte      = input.toByte
+      override def lowerBoundIntInput: Int      = Byte.MinValue
+      override def upperBoundIntInput: Int      = Byte.MaxValue
+      override def maximallyShrunkIntInput: Int = 0
     })
 
   override def integers: TrialsImplementation[Int] =
@@ -128,11 +131,11 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
       upperBound: Int,
       shrinkageTarget: Int
   ): TrialsImplementation[Int] =
-    stream(new CaseFactory[Int] {
-      override def apply(input: BigInt): Int    = input.toInt
-      override def lowerBoundInput: BigInt      = lowerBound
-      override def upperBoundInput: BigInt      = upperBound
-      override def maximallyShrunkInput: BigInt = shrinkageTarget
+    stream(new IntCaseFactory[Int] {
+      override def apply(input: Int): Int       = input
+      override def lowerBoundIntInput: Int      = lowerBound
+      override def upperBoundIntInput: Int      = upperBound
+      override def maximallyShrunkIntInput: Int = shrinkageTarget
     })
 
   override def nonNegativeLongs: TrialsImplementation[Long] =
@@ -191,8 +194,92 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
       lowerBound: Double,
       upperBound: Double,
       shrinkageTarget: Double
-  ): TrialsImplementation[Double] =
-    bigDecimals(lowerBound, upperBound, shrinkageTarget).map(_.toDouble)
+  ): TrialsImplementation[Double] = {
+    require(lowerBound <= shrinkageTarget)
+    require(shrinkageTarget <= upperBound)
+
+    if (lowerBound == upperBound) only(shrinkageTarget)
+    // NOTE: an infinite interval also fails this test.
+    else if (maximumIntervalForNativeDoubles >= upperBound - lowerBound)
+      stream(
+        new LongCaseFactory[Double] {
+          // The input domain is split either side of the maximally shrunk
+          // input in proportion to the widths of the image either side of the
+          // shrinkage target, and inputs on each side are mapped linearly
+          // onto the image on that side, so that the bounds and the shrinkage
+          // target are mapped precisely. This is the same approach as taken by
+          // `bigDecimals`, only using floating-point arithmetic.
+          override def apply(input: Long): Double =
+            if (input < maximallyShrunkLongInput) {
+              val fraction =
+                (maximallyShrunkLongInput - input).toDouble / (maximallyShrunkLongInput - lowerBoundLongInput)
+              // Have to clamp against the lower bound due to precision
+              // error...
+              lowerBound max (fraction * lowerBound + (1 - fraction) * shrinkageTarget)
+            } else if (input > maximallyShrunkLongInput) {
+              val fraction =
+                (input - maximallyShrunkLongInput).toDouble / (upperBoundLongInput - maximallyShrunkLongInput)
+              // Have to clamp against the upper bound due to precision
+              // error...
+              upperBound min (fraction * upperBound + (1 - fraction) * shrinkageTarget)
+            } else shrinkageTarget
+
+          override def lowerBoundLongInput: Long = -halfDomainForNativeDoubles
+
+          override def upperBoundLongInput: Long = halfDomainForNativeDoubles
+
+          override val maximallyShrunkLongInput: Long =
+            lowerBoundLongInput + Math.round(
+              (upperBoundLongInput - lowerBoundLongInput) * ((shrinkageTarget - lowerBound) / (upperBound - lowerBound))
+            )
+        }
+      )
+    else
+      // The interval is so wide that a `Long` input domain wouldn't resolve
+      // cases finely enough as they shrink, so defer to `bigDecimals`.
+      bigDecimals(lowerBound, upperBound, shrinkageTarget).map(_.toDouble)
+  }
+
+  override def doublesWithSpecialValues: TrialsImplementation[Double] =
+    alternateWithWeights(
+      10 -> stream(
+        new LongCaseFactory[Double] {
+          // The magnitude of an input is the bit pattern of the magnitude of
+          // the case, so that ordering is preserved and inputs shrinking
+          // towards zero yield cases whose magnitudes shrink all the way down
+          // to zero, including subnormals. A linear mapping would be too
+          // coarse to do that with a `Long` input domain.
+          override def apply(input: Long): Double = {
+            val magnitude =
+              if (halfDomainForDoublesByBitPattern == Math.abs(input))
+                Double.MaxValue
+              else
+                _root_.java.lang.Double.longBitsToDouble(Math.abs(input) << 1)
+
+            if (0 > input) -magnitude else magnitude
+          }
+
+          override def lowerBoundLongInput: Long =
+            -halfDomainForDoublesByBitPattern
+
+          override def upperBoundLongInput: Long =
+            halfDomainForDoublesByBitPattern
+
+          override def maximallyShrunkLongInput: Long = 0L
+        }
+      ),
+      1 -> choose(
+        0.0,
+        -0.0,
+        Double.MinPositiveValue,
+        -Double.MinPositiveValue,
+        // The largest subnormal value.
+        _root_.java.lang.Double.MIN_NORMAL - Double.MinPositiveValue,
+        Double.PositiveInfinity,
+        Double.NegativeInfinity,
+        Double.NaN
+      )
+    )
 
   override def bigDecimals(
       lowerBound: BigDecimal,
@@ -303,11 +390,11 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
       lowerBound: Char,
       upperBound: Char,
       shrinkageTarget: Char
-  ): TrialsImplementation[Char] = stream(new CaseFactory[Char] {
-    override def apply(input: BigInt): Char   = input.toChar
-    override def lowerBoundInput: BigInt      = BigInt(lowerBound)
-    override def upperBoundInput: BigInt      = BigInt(upperBound)
-    override def maximallyShrunkInput: BigInt = BigInt(shrinkageTarget)
+  ): TrialsImplementation[Char] = stream(new IntCaseFactory[Char] {
+    override def apply(input: Int): Char      = input.toChar
+    override def lowerBoundIntInput: Int      = lowerBound
+    override def upperBoundIntInput: Int      = upperBound
+    override def maximallyShrunkIntInput: Int = shrinkageTarget
   })
 
   override def instants: TrialsImplementation[Instant] =
@@ -318,11 +405,11 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
   override def streamLegacy[Case](
       factory: Long => Case
   ): TrialsImplementation[Case] = stream(
-    new CaseFactory[Case] {
-      override def apply(input: BigInt): Case   = factory(input.longValue)
-      override val lowerBoundInput: BigInt      = Long.MinValue
-      override val upperBoundInput: BigInt      = Long.MaxValue
-      override val maximallyShrunkInput: BigInt = 0
+    new LongCaseFactory[Case] {
+      override def apply(input: Long): Case       = factory(input)
+      override def lowerBoundLongInput: Long      = Long.MinValue
+      override def upperBoundLongInput: Long      = Long.MaxValue
+      override def maximallyShrunkLongInput: Long = 0
     }
   )
 
@@ -351,15 +438,41 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
       upperBound: Long,
       shrinkageTarget: Long
   ): TrialsImplementation[Long] =
-    stream(new CaseFactory[Long] {
-      override def apply(input: BigInt): Long   = input.toLong
-      override def lowerBoundInput: BigInt      = lowerBound
-      override def upperBoundInput: BigInt      = upperBound
-      override def maximallyShrunkInput: BigInt = shrinkageTarget
+    stream(new LongCaseFactory[Long] {
+      override def apply(input: Long): Long       = input
+      override def lowerBoundLongInput: Long      = lowerBound
+      override def upperBoundLongInput: Long      = upperBound
+      override def maximallyShrunkLongInput: Long = shrinkageTarget
     })
 
   def stream[Case](
       caseFactory: CaseFactory[Case]
+  ): TrialsImplementation[Case] = caseFactory match {
+    case longCaseFactory: LongCaseFactory[Case] => stream(longCaseFactory)
+    case _                                      => streamViaBigInts(caseFactory)
+  }
+
+  def stream[Case](
+      caseFactory: LongCaseFactory[Case]
+  ): TrialsImplementation[Case] = new TrialsImplementation(
+    Factory(new LongCaseFactory[Case] {
+      require(lowerBoundLongInput <= maximallyShrunkLongInput)
+      require(maximallyShrunkLongInput <= upperBoundLongInput)
+
+      override def apply(input: Long): Case = {
+        require(lowerBoundLongInput <= input)
+        require(upperBoundLongInput >= input)
+        caseFactory(input)
+      }
+      override def lowerBoundLongInput: Long = caseFactory.lowerBoundLongInput
+      override def upperBoundLongInput: Long = caseFactory.upperBoundLongInput
+      override def maximallyShrunkLongInput: Long =
+        caseFactory.maximallyShrunkLongInput
+    })
+  )
+
+  private def streamViaBigInts[Case](
+      caseFactory: CaseFactory[Case]
   ): TrialsImplementation[Case] = new TrialsImplementation(
     Factory(new CaseFactory[Case] {
       require(lowerBoundInput <= maximallyShrunkInput)
@@ -401,9 +514,11 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
   override def choose[Case](
       choices: Iterable[Case]
   ): TrialsImplementation[Case] =
-    new TrialsImplementation(
-      Choice(SortedMap.from(LazyList.from(1).zip(choices)))
-    )
+    new TrialsImplementation(UniformChoice(choices match {
+      // Ranges, vectors etc. are used as is; anything else is copied once.
+      case indexedChoices: IndexedSeq[Case] => indexedChoices
+      case _                                => choices.toIndexedSeq
+    }))
 
   override def chooseSeveralOf[Element](
       candidates: Iterable[Element],
@@ -623,3 +738,19 @@ class TrialsApiImplementation extends CommonApi with ScalaTrialsApi {
         LazyList.empty
     }
 }
+
+object TrialsApiImplementation {
+  // The input domain of a double factory is symmetric about zero, and has to
+  // span no more than `Long.MaxValue`.
+  private val halfDomainForNativeDoubles: Long = Long.MaxValue / 2
+
+  // Doubles mapped from their inputs via their bit patterns drop the least
+  // significant bit so that the input domain fits.
+  private val halfDomainForDoublesByBitPattern: Long =
+    _root_.java.lang.Double.doubleToLongBits(Double.MaxValue) >> 1
+
+  // Beyond this, the resolution of a double factory's input domain would be
+  // coarser than that used by `bigDecimals`, which subdivides unity by 100.
+  private[americium] val maximumIntervalForNativeDoubles: Double =
+    halfDomainForNativeDoubles.toDouble / 100
+}
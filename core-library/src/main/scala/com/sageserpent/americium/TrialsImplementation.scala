@@ -1,21 +1,21 @@
 package com.sageserpent.americium
 
-import cats.data.State
 import cats.effect.SyncIO
 import cats.free.Free.liftF
 import cats.implicits.*
-import cats.~>
 import com.google.common.collect.Ordering as _
 import com.sageserpent.americium.TrialsApis.scalaApi
 import com.sageserpent.americium.TrialsScaffolding.{ShrinkageStop, noStopping}
 import com.sageserpent.americium.generation.*
 import com.sageserpent.americium.generation.Decision.{
   DecisionStages,
-  parseRecipe
+  parseRecipe,
+  parseRecipeInto
 }
 import com.sageserpent.americium.generation.GenerationOperation.Generation
 import com.sageserpent.americium.java.TrialsDefaults.{
   defaultComplexityLimit,
+  defaultRandomGeneratorFactory,
   defaultShrinkageAttemptsLimit
 }
 import com.sageserpent.americium.java.{
@@ -41,7 +41,9 @@ import org.apache.commons.text.StringEscapeUtils
 
 import _root_.java.util.Iterator as JavaIterator
 import _root_.java.util.function.{Consumer, Function as JavaFunction}
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
 import scala.collection.Iterator as ScalaIterator
+import scala.collection.mutable
 
 object TrialsImplementation {
 
@@ -59,6 +61,11 @@ case class TrialsImplementation[Case](
 
   override type SupplySyntaxType = ScalaTrialsScaffolding.SupplyToSyntax[Case]
 
+  // NOTE: computing this walks the entire generation structure, so do it at
+  // most once.
+  private lazy val structureFingerprint: String =
+    generation.structureFingerprint
+
   override def trials: TrialsImplementation[Case] = this
 
   override def scalaTrials: TrialsImplementation[Case] = this
@@ -135,7 +142,10 @@ case class TrialsImplementation[Case](
         shrinkageAttemptsLimit: Int,
         seed: Long,
         shrinkageStop: ShrinkageStop[Case],
-        validTrialsCheckEnabled: Boolean
+        validTrialsCheckEnabled: Boolean,
+        parallelism: Int,
+        randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator],
+        duplicateDetectionFactory: () => DuplicateDetection
     ) extends SupplyToSyntaxSkeletalImplementation[Case] {
       override protected val generation: Generation[_ <: Case] =
         thisTrialsImplementation.generation
@@ -171,6 +181,33 @@ case class TrialsImplementation[Case](
       ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
         copy(validTrialsCheckEnabled = enabled)
 
+      override def withParallelism(
+          parallelism: Int
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] = {
+        require(0 < parallelism)
+
+        copy(parallelism = parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
+        copy(randomGeneratorFactory = randomGeneratorFactory)
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
+        copy(duplicateDetectionFactory =
+          DuplicateDetection.factory(duplicateDetection, budgetInBytes)
+        )
+
       // Java-only API ...
       override def withShrinkageStop(
           shrinkageStop: JavaTrialsScaffolding.ShrinkageStop[
@@ -196,6 +233,9 @@ case class TrialsImplementation[Case](
           decisionStages: DecisionStages
       ): Case = thisTrialsImplementation.reproduce(decisionStages)
 
+      override protected def structureFingerprint: String =
+        thisTrialsImplementation.structureFingerprint
+
       protected override def raiseTrialException(
           trialsReproductionStorage: Option[TrialsReproductionStorage],
           throwable: Throwable,
@@ -213,8 +253,8 @@ case class TrialsImplementation[Case](
             .recordRecipeHash(
               exception.recipeHash,
               RecipeData(
-                exception.recipe,
-                thisTrialsImplementation.generation.structureOutline
+                decisionStages.compactRecipe,
+                structureFingerprint = Some(structureFingerprint)
               )
             )
         }
@@ -229,99 +269,94 @@ case class TrialsImplementation[Case](
       shrinkageAttemptsLimit = shrinkageAttemptsLimit,
       seed = 734874L,
       shrinkageStop = shrinkageStop,
-      validTrialsCheckEnabled = true
+      validTrialsCheckEnabled = true,
+      parallelism = 1,
+      randomGeneratorFactory = defaultRandomGeneratorFactory,
+      duplicateDetectionFactory = () => DuplicateDetection.configured()
     )
   }
 
   // Java and Scala API ...
-  override def reproduce(recipe: String): Case =
-    reproduce(parseRecipe(recipe))
-
-  private def reproduce(decisionStages: DecisionStages): Case = {
-    case class Context(
-        decisionStages: DecisionStages,
-        complexity: Int,
-        nextUniqueId: Int
-    ) {
-      def uniqueId(): (Context, Int) =
-        copy(nextUniqueId = 1 + nextUniqueId) -> nextUniqueId
+  override def reproduce(recipe: String): Case = {
+    val decisions = mutable.ArrayBuffer.empty[Decision]
+
+    parseRecipeInto(recipe, decisions)
+
+    reproduce(decisions)
+  }
+
+  override def reproduceAll(recipes: Iterable[String]): Iterator[Case] = {
+    // NOTE: the decision buffer is reused across all of the recipes.
+    val decisions = mutable.ArrayBuffer.empty[Decision]
+
+    recipes.iterator.map { recipe =>
+      parseRecipeInto(recipe, decisions)
+
+      reproduce(decisions)
     }
+  }
+
+  private def reproduce(decisionStages: DecisionStages): Case =
+    reproduce(decisionStages.toIndexedSeq)
 
-    type DecisionIndicesContext[Caze] = State[Context, Caze]
+  private def reproduce(decisions: collection.IndexedSeq[Decision]): Case = {
+    var decisionStageIndex = 0
+    var complexity         = 0
+    var nextUniqueId       = 0
 
     // NOTE: unlike the companion interpreter over in
     // `SupplyToSyntaxSkeletalImplementation.cases`, this one has a relatively
     // sane implementation.
-    def interpreter: GenerationOperation ~> DecisionIndicesContext =
-      new (GenerationOperation ~> DecisionIndicesContext) {
-        override def apply[ArbitraryCase](
-            generationOperation: GenerationOperation[ArbitraryCase]
-        ): DecisionIndicesContext[ArbitraryCase] = {
-          generationOperation match {
-            case Choice(choicesByCumulativeFrequency) =>
-              for {
-                context <- State.get[Context]
-                Context(
-                  ChoiceOf(decisionIndex) :: remainingDecisionStages,
-                  complexity,
-                  nextUniqueId
-                ) =
-                  context: @unchecked
-                _ <- State.set(
-                  Context(remainingDecisionStages, 1 + complexity, nextUniqueId)
-                )
-              } yield {
-                val cumulativeFrequencyToMatchOrExceed = 1 + decisionIndex
-
-                choicesByCumulativeFrequency
-                  .minAfter(cumulativeFrequencyToMatchOrExceed)
-                  .getOrElse {
-                    throw new RecipeCouldNotBeReproducedException(
-                      context.decisionStages,
-                      choicesByCumulativeFrequency,
-                      cumulativeFrequencyToMatchOrExceed,
-                      generation,
-                      TrialsReproductionStorage.trialsReproductionStorage
-                    )
-                  }
-                  ._2
-              }
-
-            case Factory(factory) =>
-              for {
-                context <- State.get[Context]
-                Context(
-                  FactoryInputOf(input) :: remainingDecisionStages,
-                  complexity,
-                  nextUniqueId
-                ) =
-                  context: @unchecked
-                _ <- State.set(
-                  Context(remainingDecisionStages, 1 + complexity, nextUniqueId)
-                )
-              } yield factory(input)
+    def interpret(generationOperation: GenerationOperation[Any]): Any =
+      generationOperation match {
+        case choice: Choice[Any] =>
+          val ChoiceOf(decisionIndex) =
+            decisions(decisionStageIndex): @unchecked
+
+          val result = choice.choiceAt(decisionIndex).getOrElse {
+            throw new RecipeCouldNotBeReproducedException(
+              decisions.view.drop(decisionStageIndex).toList,
+              choice.choicesByCumulativeFrequency,
+              1 + decisionIndex,
+              generation,
+              TrialsReproductionStorage.trialsReproductionStorage
+            )
+          }
 
-            // NOTE: pattern-match only on `Some`, as we are reproducing a case
-            // that by dint of being reproduced, must have passed filtration the
-            // first time around.
-            case FiltrationResult(Some(result)) =>
-              result.pure[DecisionIndicesContext]
+          decisionStageIndex += 1
+          complexity += 1
 
-            case NoteComplexity =>
-              State.get[Context].map(_.complexity)
+          result
 
-            case ResetComplexity(_) =>
-              ().pure[DecisionIndicesContext]
+        case Factory(factory) =>
+          val FactoryInputOf(input) =
+            decisions(decisionStageIndex): @unchecked
 
-            case UniqueId => State(_.uniqueId())
-          }
-        }
+          decisionStageIndex += 1
+          complexity += 1
+
+          factory(input)
+
+        // NOTE: pattern-match only on `Some`, as we are reproducing a case
+        // that by dint of being reproduced, must have passed filtration the
+        // first time around.
+        case FiltrationResult(Some(result)) => result
+
+        case NoteComplexity => complexity
+
+        case ResetComplexity(_) => ()
+
+        case UniqueId =>
+          val result = nextUniqueId
+
+          nextUniqueId += 1
+
+          result
       }
 
-    generation
-      .foldMap(interpreter)
-      .runA(Context(decisionStages, complexity = 0, nextUniqueId = 0))
-      .value
+    GenerationOperation
+      .interpretDirectly(generation, interpret)
+      .asInstanceOf[Case]
   }
 
   private def trialException(
@@ -401,6 +436,28 @@ case class TrialsImplementation[Case](
       ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
         this // There is no valid trials check, as the reproduction is determined entirely by `recipe`.
 
+      override def withParallelism(
+          parallelism: Int
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
+        this // There is nothing to run in parallel, as the reproduction is a single case determined entirely by `recipe`.
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
+        this // Nothing is chosen at random, as the reproduction is determined entirely by `recipe`.
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): JavaTrialsScaffolding.SupplyToSyntax[
+        Case
+      ] with ScalaTrialsScaffolding.SupplyToSyntax[Case] =
+        this // There are no duplicates, as the reproduction is a single case determined entirely by `recipe`.
+
       // Java-only API ...
       override def withShrinkageStop(
           shrinkageStop: JavaTrialsScaffolding.ShrinkageStop[
@@ -439,8 +496,10 @@ case class TrialsImplementation[Case](
                 runnable.run()
                 true
             },
-            isPartOfShrinkage = false,
-            recipe = recipe
+            isPartOfShrinkage = false
+          )(
+            recipeRendering = () => recipe,
+            recipeHashRendering = () => decisionStages.recipeHash
           )
         }: TestIntegrationContext[Case]).iterator)
       }
@@ -12,6 +12,8 @@ import com.sageserpent.americium.java.{
   TrialsFactoring
 }
 
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
+
 object TrialsScaffolding {
 
   /** @return
@@ -73,6 +75,68 @@ object TrialsScaffolding {
       */
     def withValidTrialsCheck(enabled: Boolean): SupplyToSyntax[Case]
 
+    /** Configures how many trials may be run concurrently by [[supplyTo]].
+      *
+      * Cases are generated in the same order as for sequential supply, but
+      * {@code consumer} is run on batches of up to {@code parallelism} cases
+      * using a bounded pool of threads. If any trial fails, supply falls back
+      * to sequential execution, reusing the outcomes of trials already run,
+      * so shrinkage proceeds exactly as it would do sequentially and the
+      * resulting [[TrialException]] has the same recipe.
+      * @param parallelism
+      *   The maximum number of concurrently running trials; must be at least
+      *   one.
+      * @note
+      *   The default is one, so supply is sequential. Only [[supplyTo]] is
+      *   affected - [[asIterator]] and [[testIntegrationContexts]] always
+      *   yield cases one at a time. When running in parallel, {@code consumer}
+      *   must be safe to call from several threads at once, and should behave
+      *   deterministically for a given case.
+      */
+    def withParallelism(parallelism: Int): SupplyToSyntax[Case]
+
+    /** Configures the algorithm used to generate random decisions when
+      * supplying cases; a generator is created from {@code
+      * randomGeneratorFactory} using the seed each time cases are supplied.
+      * @param randomGeneratorFactory
+      *   Creates the random generator from the seed.
+      * @note
+      *   The default is
+      *   [[com.sageserpent.americium.java.TrialsDefaults.defaultRandomGeneratorFactory]];
+      *   use
+      *   [[com.sageserpent.americium.java.TrialsDefaults.legacyRandomGeneratorFactory]]
+      *   to generate the same cases for a given seed as older releases did.
+      *   Recipes don't depend on the random generator, so they reproduce cases
+      *   regardless.
+      */
+    def withRandomGeneratorFactory(
+        randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+    ): SupplyToSyntax[Case]
+
+    /** Configures how cases already supplied are detected, so that they aren't
+      * supplied again.
+      * @param duplicateDetection
+      *   One of
+      *   [[com.sageserpent.americium.java.TrialsDefaults.exactDuplicateDetection]],
+      *   [[com.sageserpent.americium.java.TrialsDefaults.hashSetDuplicateDetection]]
+      *   or
+      *   [[com.sageserpent.americium.java.TrialsDefaults.bloomFilterDuplicateDetection]].
+      * @param budgetInBytes
+      *   The memory that duplicate detection may use; must be positive.
+      * @note
+      *   The defaults are
+      *   [[com.sageserpent.americium.java.TrialsDefaults.defaultDuplicateDetection]]
+      *   and
+      *   [[com.sageserpent.americium.java.TrialsDefaults.defaultDuplicateDetectionBudgetInBytes]],
+      *   unless overridden by the Java properties {@code
+      *   trials.duplicateDetection} and {@code
+      *   trials.duplicateDetectionBudgetBytes}.
+      */
+    def withDuplicateDetection(
+        duplicateDetection: String,
+        budgetInBytes: Int
+    ): SupplyToSyntax[Case]
+
     /** Consume trial cases until either there are no more or an exception is
       * thrown by {@code consumer}. If an exception is thrown, attempts will be
       * made to shrink the trial case that caused the exception to a simpler
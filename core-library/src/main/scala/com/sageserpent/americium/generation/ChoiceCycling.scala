@@ -0,0 +1,82 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.utilities.PseudoRandomPermutation
+import com.typesafe.scalalogging.StrictLogging
+
+import _root_.java.util.{LinkedHashMap as JavaLinkedHashMap, Map as JavaMap}
+
+object ChoiceCycling {
+  private final class Cycle(var permutation: PseudoRandomPermutation) {
+    var position = 0
+
+    def isExhausted: Boolean = permutation.exclusiveLimit <= position
+  }
+}
+
+// Tracks the progress through a permutation of choice indices for each
+// interned sequence of decision stages, keyed by the sequence's serial number.
+// This is bounded to `capacity` sequences, evicting the least recently used
+// one when full; should a sequence be evicted, cycling for it simply starts
+// afresh, so choices degrade gracefully to being made at random.
+// NOTE: eviction is deliberately deterministic, so that the cases supplied for
+// a given seed are reproducible.
+final class ChoiceCycling(val capacity: Int) extends StrictLogging {
+  import ChoiceCycling.*
+
+  require(0 < capacity)
+
+  private val cyclesBySerialNumber =
+    new JavaLinkedHashMap[Integer, Cycle](16, 0.75f, true) {
+      override def removeEldestEntry(
+          eldest: JavaMap.Entry[Integer, Cycle]
+      ): Boolean = {
+        val evict = capacity < size()
+        if (evict) numberOfEvictions += 1
+        evict
+      }
+    }
+
+  private var numberOfHits      = 0L
+  private var numberOfMisses    = 0L
+  private var numberOfEvictions = 0L
+
+  def hits: Long      = numberOfHits
+  def misses: Long    = numberOfMisses
+  def evictions: Long = numberOfEvictions
+
+  def size: Int = cyclesBySerialNumber.size
+
+  // Yields the next index to choose after the sequence denoted by
+  // `serialNumber`, using `freshPermutation` to start a new cycle if there is
+  // no cycle in progress.
+  def nextIndex(
+      serialNumber: Int,
+      freshPermutation: => PseudoRandomPermutation
+  ): Int = {
+    // NOTE: looking up the cycle makes it the most recently used.
+    var cycle = cyclesBySerialNumber.get(serialNumber)
+
+    if (null == cycle) {
+      numberOfMisses += 1
+      cycle = new Cycle(freshPermutation)
+      cyclesBySerialNumber.put(serialNumber, cycle)
+    } else if (cycle.isExhausted) {
+      numberOfMisses += 1
+      cycle.permutation = freshPermutation
+      cycle.position = 0
+    } else numberOfHits += 1
+
+    val index = cycle.permutation(cycle.position)
+
+    cycle.position += 1
+
+    index
+  }
+
+  def clear(): Unit = cyclesBySerialNumber.clear()
+
+  def logStatistics(): Unit =
+    logger.debug(
+      s"Choice cycling for $size of at most $capacity decision stages: $numberOfHits hits, $numberOfMisses misses, $numberOfEvictions evictions."
+    )
+}
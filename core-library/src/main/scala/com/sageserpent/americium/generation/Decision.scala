@@ -1,25 +1,162 @@
 package com.sageserpent.americium.generation
 import com.google.common.hash.Hashing as GuavaHashing
+import io.circe.DecodingFailure
 import io.circe.generic.auto.*
-import io.circe.parser.decode
+import io.circe.parser.{decode, parse}
 import io.circe.syntax.*
 
+import _root_.java.io.ByteArrayOutputStream
+import _root_.java.nio.ByteBuffer
+import _root_.java.util.Base64
+import scala.collection.mutable
+
 sealed trait Decision
 
 object Decision {
   type DecisionStages = List[Decision]
 
-  def parseRecipe(recipe: String): DecisionStages = {
-    decode[DecisionStages](
-      recipe
-    ).toTry.get // Just throw the exception, the callers are written in Java style.
+  // A compact recipe is a sequence of varints, rendered as URL-safe Base64
+  // text. The first byte is the format version, followed by the number of
+  // decisions and then the decisions themselves. Each decision starts with a
+  // varint whose low bits give the kind of decision:
+  // 1. a choice holds its index in the remaining high bits.
+  // 2. a factory input that fits in a `Long` follows as a zig-zag varint.
+  // 3. any other factory input holds the length of its two's-complement
+  // representation in the remaining high bits, followed by those bytes.
+  private val compactRecipeFormatVersion = 1
+
+  private val numberOfBitsForKindOfDecision = 2
+  private val choiceKind                    = 0
+  private val longFactoryInputKind          = 1
+  private val bigFactoryInputKind           = 2
+
+  private val base64Encoder = Base64.getUrlEncoder.withoutPadding()
+  private val base64Decoder = Base64.getUrlDecoder
+
+  // NOTE: JSON recipes are arrays, and '[' is not part of the Base64 alphabet,
+  // so the two formats can't be confused.
+  private def isJson(recipe: String): Boolean = recipe.trim.startsWith("[")
+
+  def parseRecipe(recipe: String): DecisionStages =
+    if (isJson(recipe))
+      decode[DecisionStages](
+        recipe
+      ).toTry.get // Just throw the exception, the callers are written in Java style.
+    else {
+      val decisions = mutable.ListBuffer.empty[Decision]
+
+      parseCompactRecipeInto(recipe, decisions)
+
+      decisions.toList
+    }
+
+  // Parses `recipe` into `decisions`, replacing their previous contents; this
+  // allows the same buffer to be reused when parsing a series of recipes.
+  def parseRecipeInto(
+      recipe: String,
+      decisions: mutable.ArrayBuffer[Decision]
+  ): Unit = {
+    decisions.clear()
+
+    if (isJson(recipe)) {
+      val elements = parse(recipe).toTry.get.asArray.getOrElse(
+        throw DecodingFailure(
+          "Expected a recipe to be a JSON array.",
+          List.empty
+        )
+      )
+
+      elements.foreach(element => decisions += element.as[Decision].toTry.get)
+    } else parseCompactRecipeInto(recipe, decisions)
+  }
+
+  private def parseCompactRecipeInto(
+      recipe: String,
+      decisions: mutable.Growable[Decision]
+  ): Unit = {
+    val bytes = ByteBuffer.wrap(base64Decoder.decode(recipe.trim))
+
+    def readVarint(): Long = {
+      var result = 0L
+      var shift  = 0
+      var byte   = bytes.get()
+      while (0 != (byte & 0x80)) {
+        result |= (byte & 0x7fL) << shift
+        shift += 7
+        byte = bytes.get()
+      }
+      result | ((byte & 0x7fL) << shift)
+    }
+
+    val formatVersion = bytes.get()
+
+    if (compactRecipeFormatVersion != formatVersion)
+      throw new IllegalArgumentException(
+        s"Recipe has unsupported compact format version: $formatVersion."
+      )
+
+    val numberOfDecisions = readVarint()
+
+    for (_ <- 0L until numberOfDecisions) {
+      val leader = readVarint()
+
+      val payload = leader >> numberOfBitsForKindOfDecision
+
+      val decision =
+        (leader & ((1 << numberOfBitsForKindOfDecision) - 1)).toInt match {
+          case `choiceKind` => ChoiceOf(payload.toInt)
+          case `longFactoryInputKind` =>
+            val zigZagged = readVarint()
+            FactoryInputOf((zigZagged >>> 1) ^ -(zigZagged & 1))
+          case `bigFactoryInputKind` =>
+            val twosComplement = new Array[Byte](payload.toInt)
+            bytes.get(twosComplement)
+            FactoryInputOf(BigInt(twosComplement))
+          case kind =>
+            throw new IllegalArgumentException(
+              s"Recipe has unknown kind of decision: $kind."
+            )
+        }
+
+      decisions += decision
+    }
   }
 
   implicit class DecisionStagesSyntax(val decisionStages: DecisionStages) {
     def shorthandRecipe: String =
       decisionStages.asJson.noSpaces
 
-    def recipeHash: String =
+    // A recipe hash is computed directly from the decisions, without
+    // rendering a recipe. Each decision contributes the same words as the
+    // leading varints in its compact recipe, with a factory input that doesn't
+    // fit in a `Long` contributing its two's-complement bytes.
+    def recipeHash: String = {
+      val hasher = GuavaHashing.murmur3_128().newHasher()
+
+      decisionStages.foreach {
+        case ChoiceOf(index) =>
+          hasher.putLong(
+            (index.toLong << numberOfBitsForKindOfDecision) | choiceKind
+          )
+        case FactoryInputOf(input) if input.isValidLong =>
+          hasher.putLong(longFactoryInputKind.toLong).putLong(input.toLong)
+        case FactoryInputOf(input) =>
+          val twosComplement = input.toByteArray
+
+          hasher
+            .putLong(
+              (twosComplement.length.toLong << numberOfBitsForKindOfDecision) |
+                bigFactoryInputKind
+            )
+            .putBytes(twosComplement)
+      }
+
+      hasher.hash().toString
+    }
+
+    // Recipe hashes used to be computed from the longhand recipe; this is
+    // kept so that recipe data stored under such hashes can still be found.
+    def legacyRecipeHash: String =
       GuavaHashing
         .murmur3_128()
         .hashUnencodedChars(decisionStages.longhandRecipe)
@@ -27,6 +164,45 @@ object Decision {
 
     def longhandRecipe: String =
       decisionStages.asJson.spaces4
+
+    // Unlike the other renderings, this is not human-readable, but is much
+    // smaller and cheaper to produce and parse.
+    def compactRecipe: String = {
+      val bytes = new ByteArrayOutputStream()
+
+      def writeVarint(value: Long): Unit = {
+        var remainder = value
+        while (0L != (remainder & ~0x7fL)) {
+          bytes.write(((remainder & 0x7f) | 0x80).toInt)
+          remainder >>>= 7
+        }
+        bytes.write(remainder.toInt)
+      }
+
+      bytes.write(compactRecipeFormatVersion)
+
+      writeVarint(decisionStages.size)
+
+      decisionStages.foreach {
+        case ChoiceOf(index) =>
+          writeVarint(
+            (index.toLong << numberOfBitsForKindOfDecision) | choiceKind
+          )
+        case FactoryInputOf(input) if input.isValidLong =>
+          val value = input.toLong
+          writeVarint(longFactoryInputKind)
+          writeVarint((value << 1) ^ (value >> 63))
+        case FactoryInputOf(input) =>
+          val twosComplement = input.toByteArray
+          writeVarint(
+            (twosComplement.length.toLong << numberOfBitsForKindOfDecision) |
+              bigFactoryInputKind
+          )
+          bytes.write(twosComplement)
+      }
+
+      base64Encoder.encodeToString(bytes.toByteArray)
+    }
   }
 }
 
@@ -0,0 +1,262 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.generation.Decision.DecisionStages
+import com.sageserpent.americium.utilities.Mixing.mixed
+import com.typesafe.scalalogging.StrictLogging
+
+import _root_.java.util.Arrays as JavaArrays
+import scala.annotation.tailrec
+import scala.collection.mutable
+
+object DecisionStagesInterning {
+  // Denotes the absence of any decision stages, so this is the parent of the
+  // first decision in any sequence.
+  val noDecisionStagesIndex: Int = -1
+
+  val maximumNumberOfDecisionStagesDefault: Int = 1 << 21
+
+  private[generation] val choiceKind: Byte           = 0
+  private[generation] val longFactoryInputKind: Byte = 1
+  private[generation] val bigFactoryInputKind: Byte  = 2
+
+  private[generation] val initialCapacity = 1 << 10
+
+  def fingerprintOfNoDecisionStages(seed: Long): Long = mixed(seed)
+}
+
+// Interns sequences of decision stages in a `DecisionStagesTable`, starting
+// afresh with an empty table once the current one holds more than
+// `maximumNumberOfDecisionStages` nodes. This is only done between cases via
+// `startAfreshIfOverBudget`, so the nodes of a case in the making are never
+// lost; interned sequences from before a fresh start keep their own table, so
+// they can still be recovered, and the old table is reclaimed once nothing
+// refers to it. Serial numbers are only unique within a table, so anything
+// keyed by them has to be cleared when `epoch` changes.
+final class DecisionStagesInterning(
+    val maximumNumberOfDecisionStages: Int =
+      DecisionStagesInterning.maximumNumberOfDecisionStagesDefault
+) extends StrictLogging {
+  require(0 < maximumNumberOfDecisionStages)
+
+  private var currentTable = new DecisionStagesTable
+
+  private var numberOfFreshStarts = 0
+
+  def table: DecisionStagesTable = currentTable
+
+  // Counts the fresh starts so far.
+  def epoch: Int = numberOfFreshStarts
+
+  def numberOfDecisionStages: Int = currentTable.numberOfDecisionStages
+
+  def footprintInBytes: Long = currentTable.footprintInBytes
+
+  def intern(parentIndex: Int, decision: Decision): Int =
+    currentTable.intern(parentIndex, decision)
+
+  def internLongFactoryInput(parentIndex: Int, input: Long): Int =
+    currentTable.internLongFactoryInput(parentIndex, input)
+
+  def appendInReverseOnTo(
+      index: Int,
+      partialResult: DecisionStages
+  ): DecisionStages = currentTable.appendInReverseOnTo(index, partialResult)
+
+  // Yields true if a fresh start was made.
+  def startAfreshIfOverBudget(): Boolean =
+    (maximumNumberOfDecisionStages < currentTable.numberOfDecisionStages) && {
+      logger.debug(
+        s"Starting afresh after interning ${currentTable.numberOfDecisionStages} decision stages, using approximately ${currentTable.footprintInBytes} bytes."
+      )
+
+      currentTable = new DecisionStagesTable
+      numberOfFreshStarts += 1
+
+      true
+    }
+}
+
+// Interns sequences of decision stages as a prefix trie held in parallel
+// primitive arrays, so that each interned sequence is denoted by the index of
+// the node for its latest decision, and identical sequences share the same
+// index. Each node holds the index of its parent and its own decision; a
+// decision is held as a kind and a payload, the latter being a choice's index,
+// a factory input that fits in a `Long`, or the slot of a larger factory input
+// in a side buffer. Appending a decision is a single probe of an open-addressed
+// table of nodes, keyed by parent and decision; recovering the sequence just
+// follows the parent indices without any hashing.
+// NOTE: nodes are never removed, so the size of a table is bounded by starting
+// a fresh one - see `DecisionStagesInterning`.
+final class DecisionStagesTable extends StrictLogging {
+  import DecisionStagesInterning.*
+
+  private var parents: Array[Int]   = new Array(initialCapacity)
+  private var kinds: Array[Byte]    = new Array(initialCapacity)
+  private var payloads: Array[Long] = new Array(initialCapacity)
+
+  private val bigFactoryInputs = mutable.ArrayBuffer.empty[BigInt]
+
+  // Each slot holds one more than the index of a node, so that zero denotes an
+  // empty slot. The number of slots is a power of two and is kept at least
+  // double the number of nodes.
+  private var slots: Array[Int] = new Array(2 * initialCapacity)
+
+  private var numberOfNodes = 0
+
+  def numberOfDecisionStages: Int = numberOfNodes
+
+  def footprintInBytes: Long = {
+    val bytesForNodes =
+      parents.length.toLong * Integer.BYTES + kinds.length +
+        payloads.length.toLong * _root_.java.lang.Long.BYTES
+    val bytesForSlots = slots.length.toLong * Integer.BYTES
+    // NOTE: this is a rough guess that includes the object overhead.
+    val bytesForBigFactoryInputs =
+      bigFactoryInputs.iterator.map(64L + _.bitLength / 8).sum
+
+    bytesForNodes + bytesForSlots + bytesForBigFactoryInputs
+  }
+
+  def intern(parentIndex: Int, decision: Decision): Int =
+    // NOTE: this is called for every decision, so avoid allocating anything
+    // unless a node is added.
+    decision match {
+      case ChoiceOf(index) =>
+        intern(parentIndex, choiceKind, index, null)
+      case FactoryInputOf(input) if input.isValidLong =>
+        intern(parentIndex, longFactoryInputKind, input.toLong, null)
+      case FactoryInputOf(input) =>
+        // NOTE: the payload is just the hash until the node is added.
+        intern(parentIndex, bigFactoryInputKind, input.hashCode, input)
+    }
+
+  // Interns a factory input that fits in a `Long` without going via a
+  // `FactoryInputOf`, so that no `BigInt` need be made for it.
+  def internLongFactoryInput(parentIndex: Int, input: Long): Int =
+    intern(parentIndex, longFactoryInputKind, input, null)
+
+  private def intern(
+      parentIndex: Int,
+      kind: Byte,
+      payload: Long,
+      bigFactoryInput: BigInt
+  ): Int = {
+    val mask = slots.length - 1
+
+    var slotIndex = hashOf(parentIndex, kind, payload) & mask
+    var nodeIndex = noDecisionStagesIndex
+
+    while (noDecisionStagesIndex == nodeIndex) {
+      val occupant = slots(slotIndex)
+
+      if (0 == occupant) {
+        nodeIndex = addNode(
+          parentIndex,
+          kind,
+          if (bigFactoryInputKind == kind) {
+            bigFactoryInputs += bigFactoryInput
+            bigFactoryInputs.size - 1
+          } else payload
+        )
+        slots(slotIndex) = 1 + nodeIndex
+      } else {
+        val candidate = occupant - 1
+        if (
+          parents(candidate) == parentIndex && kinds(candidate) == kind && (
+            if (bigFactoryInputKind == kind)
+              bigFactoryInputs(payloads(candidate).toInt) == bigFactoryInput
+            else payloads(candidate) == payload
+          )
+        ) nodeIndex = candidate
+        else slotIndex = (1 + slotIndex) & mask
+      }
+    }
+
+    if (slots.length < 2 * numberOfNodes) grow()
+
+    nodeIndex
+  }
+
+  @tailrec
+  def appendInReverseOnTo(
+      index: Int,
+      partialResult: DecisionStages
+  ): DecisionStages =
+    if (noDecisionStagesIndex == index) partialResult
+    else
+      appendInReverseOnTo(
+        parents(index),
+        decisionAt(index) :: partialResult
+      )
+
+  // Hashes the sequence denoted by `index` to 64 bits, starting from `seed`;
+  // different seeds yield independent hashes. Unlike the index, this is the
+  // same for the same sequence in any table.
+  def fingerprint(index: Int, seed: Long): Long = {
+    var result       = fingerprintOfNoDecisionStages(seed)
+    var currentIndex = index
+
+    while (noDecisionStagesIndex != currentIndex) {
+      val payload =
+        if (bigFactoryInputKind == kinds(currentIndex))
+          bigFactoryInputs(payloads(currentIndex).toInt).hashCode.toLong
+        else payloads(currentIndex)
+
+      result = mixed(mixed(result ^ kinds(currentIndex)) ^ payload)
+      currentIndex = parents(currentIndex)
+    }
+
+    result
+  }
+
+  private def decisionAt(index: Int): Decision = kinds(index) match {
+    case `choiceKind`           => ChoiceOf(payloads(index).toInt)
+    case `longFactoryInputKind` => FactoryInputOf(payloads(index))
+    case `bigFactoryInputKind` =>
+      FactoryInputOf(bigFactoryInputs(payloads(index).toInt))
+  }
+
+  private def addNode(parentIndex: Int, kind: Byte, payload: Long): Int = {
+    val nodeIndex = numberOfNodes
+
+    if (parents.length == nodeIndex) {
+      val capacity = 2 * parents.length
+      parents = JavaArrays.copyOf(parents, capacity)
+      kinds = JavaArrays.copyOf(kinds, capacity)
+      payloads = JavaArrays.copyOf(payloads, capacity)
+    }
+
+    parents(nodeIndex) = parentIndex
+    kinds(nodeIndex) = kind
+    payloads(nodeIndex) = payload
+
+    numberOfNodes += 1
+
+    nodeIndex
+  }
+
+  private def hashOf(parentIndex: Int, kind: Byte, payload: Long): Int =
+    mixed((parentIndex.toLong << 32) ^ (kind.toLong << 29) ^ payload).toInt
+
+  private def grow(): Unit = {
+    slots = new Array(2 * slots.length)
+
+    val mask = slots.length - 1
+
+    for (nodeIndex <- 0 until numberOfNodes) {
+      val payload =
+        if (bigFactoryInputKind == kinds(nodeIndex))
+          bigFactoryInputs(payloads(nodeIndex).toInt).hashCode.toLong
+        else payloads(nodeIndex)
+
+      var slotIndex =
+        hashOf(parents(nodeIndex), kinds(nodeIndex), payload) & mask
+      while (0 != slots(slotIndex)) slotIndex = (1 + slotIndex) & mask
+      slots(slotIndex) = 1 + nodeIndex
+    }
+
+    logger.debug(
+      s"Interned $numberOfNodes decision stages, using approximately $footprintInBytes bytes."
+    )
+  }
+}
@@ -0,0 +1,296 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.generation.JavaPropertyNames.{
+  duplicateDetectionBudgetJavaProperty,
+  duplicateDetectionJavaProperty
+}
+import com.sageserpent.americium.java.TrialsDefaults
+import com.sageserpent.americium.utilities.Mixing.mixed
+import com.typesafe.scalalogging.StrictLogging
+
+import _root_.java.util.Arrays as JavaArrays
+import scala.collection.mutable
+
+// Detects cases whose decision stages have already been seen during a supply
+// of cases, so that they aren't supplied again. A case is denoted by the serial
+// number of its interned decision stages and by a fingerprint of those decision
+// stages, the latter being a function of a seed so that independent 64-bit
+// hashes can be drawn from it. Each implementation trades exactness for
+// memory; none of them grows beyond its budget, however long the supply runs.
+trait DuplicateDetection extends StrictLogging {
+  // Yields true if the decision stages aren't known to have been seen already,
+  // noting them as seen. A false positive makes a novel case look like a
+  // duplicate, so it is skipped; a false negative lets a duplicate through.
+  def noteIfNew(serialNumber: Int, fingerprint: Long => Long): Boolean
+
+  // Called when interning starts afresh, as serial numbers are then reused.
+  def noteFreshStartOfInterning(): Unit
+
+  def footprintInBytes: Long
+
+  def estimatedFalsePositiveRate: Double
+
+  def name: String
+
+  protected def detailsForStatistics: String
+
+  protected def accuracyForStatistics: String =
+    s"an estimated false positive rate of $estimatedFalsePositiveRate"
+
+  def logStatistics(): Unit =
+    logger.debug(
+      s"Duplicate detection via $name: $detailsForStatistics, using approximately $footprintInBytes bytes with $accuracyForStatistics."
+    )
+}
+
+object DuplicateDetection {
+  val exact: String       = TrialsDefaults.exactDuplicateDetection
+  val hashSet: String     = TrialsDefaults.hashSetDuplicateDetection
+  val bloomFilter: String = TrialsDefaults.bloomFilterDuplicateDetection
+
+  val duplicateDetectionDefault: String =
+    TrialsDefaults.defaultDuplicateDetection
+
+  val budgetInBytesDefault: Int =
+    TrialsDefaults.defaultDuplicateDetectionBudgetInBytes
+
+  // Yields a factory for the chosen implementation, so that each supply of
+  // cases can start with a fresh instance; an unknown implementation or a
+  // budget that isn't positive is rejected straight away.
+  def factory(
+      duplicateDetection: String,
+      budgetInBytes: Int
+  ): () => DuplicateDetection = {
+    require(
+      0 < budgetInBytes,
+      s"Budget for duplicate detection must be positive, but was: $budgetInBytes."
+    )
+
+    duplicateDetection.trim match {
+      case `exact`       => () => new ExactDuplicateDetection
+      case `hashSet`     => () => new HashSetDuplicateDetection(budgetInBytes)
+      case `bloomFilter` =>
+        () => new BloomFilterDuplicateDetection(budgetInBytes)
+      case unknown =>
+        throw new IllegalArgumentException(
+          s"Unknown duplicate detection: $unknown - expected one of: $exact, $hashSet, $bloomFilter."
+        )
+    }
+  }
+
+  // Uses the Java properties to choose the implementation and its budget.
+  def configured(): DuplicateDetection = {
+    val budgetInBytes =
+      Option(System.getProperty(duplicateDetectionBudgetJavaProperty))
+        .fold(ifEmpty = budgetInBytesDefault)(_.toInt)
+
+    factory(
+      Option(System.getProperty(duplicateDetectionJavaProperty))
+        .getOrElse(duplicateDetectionDefault),
+      budgetInBytes
+    )()
+  }
+
+  // The largest power of two that is no more than `limit`, which must be
+  // positive.
+  private[generation] def powerOfTwoWithin(limit: Long): Long =
+    _root_.java.lang.Long.highestOneBit(limit)
+}
+
+// Interned decision stages have dense serial numbers, so duplicates are
+// detected exactly using a single bit per distinct decision stages. The budget
+// is that of the interning: this is cleared whenever the interning starts
+// afresh, so duplicates of cases from before that aren't detected.
+final class ExactDuplicateDetection extends DuplicateDetection {
+  private val serialNumbersSeen = mutable.BitSet.empty
+
+  private var numberOfFreshStarts = 0
+
+  override def noteIfNew(
+      serialNumber: Int,
+      fingerprint: Long => Long
+  ): Boolean = serialNumbersSeen.add(serialNumber)
+
+  override def noteFreshStartOfInterning(): Unit = {
+    serialNumbersSeen.clear()
+    numberOfFreshStarts += 1
+  }
+
+  override def footprintInBytes: Long =
+    serialNumbersSeen.toBitMask.length.toLong * _root_.java.lang.Long.BYTES
+
+  override def estimatedFalsePositiveRate: Double = 0.0
+
+  override def name: String = DuplicateDetection.exact
+
+  override protected def detailsForStatistics: String =
+    s"${serialNumbersSeen.size} serial numbers noted since the last of $numberOfFreshStarts fresh starts"
+}
+
+// Holds 128-bit fingerprints in a fixed-size open-addressed table; should a
+// fingerprint find no vacancy within a few probes, it displaces the occupant
+// at its home slot, so the oldest fingerprints are gradually forgotten rather
+// than the table growing. A forgotten fingerprint lets a duplicate through, so
+// this misses duplicates rather than mistaking novel cases for them.
+final class HashSetDuplicateDetection(budgetInBytes: Int)
+    extends DuplicateDetection {
+  import DuplicateDetection.powerOfTwoWithin
+
+  private val numberOfSlots: Int = powerOfTwoWithin(
+    1L max (budgetInBytes / (2 * _root_.java.lang.Long.BYTES))
+  ).toInt
+
+  private val maximumNumberOfProbes = 8 min numberOfSlots
+
+  // NOTE: a slot is vacant if its second word is zero, so second words are
+  // forced to be odd.
+  private val firstWords: Array[Long]  = new Array(numberOfSlots)
+  private val secondWords: Array[Long] = new Array(numberOfSlots)
+
+  private var numberOfOccupiedSlots = 0
+  private var numberOfDisplacements = 0L
+
+  override def noteIfNew(
+      serialNumber: Int,
+      fingerprint: Long => Long
+  ): Boolean = {
+    val firstWord  = fingerprint(0x243f6a8885a308d3L)
+    val secondWord = fingerprint(0x13198a2e03707344L) | 1L
+
+    val mask     = numberOfSlots - 1
+    val homeSlot = firstWord.toInt & mask
+
+    var probe   = 0
+    var decided = false
+    var isNew   = true
+
+    while (!decided && maximumNumberOfProbes > probe) {
+      val slot = (homeSlot + probe) & mask
+
+      if (0L == secondWords(slot)) {
+        firstWords(slot) = firstWord
+        secondWords(slot) = secondWord
+        numberOfOccupiedSlots += 1
+        decided = true
+      } else if (
+        firstWord == firstWords(slot) && secondWord == secondWords(slot)
+      ) {
+        isNew = false
+        decided = true
+      } else probe += 1
+    }
+
+    if (!decided) {
+      firstWords(homeSlot) = firstWord
+      secondWords(homeSlot) = secondWord
+      numberOfDisplacements += 1
+    }
+
+    isNew
+  }
+
+  override def noteFreshStartOfInterning(): Unit = {}
+
+  override def footprintInBytes: Long =
+    2L * numberOfSlots * _root_.java.lang.Long.BYTES
+
+  // NOTE: a false positive requires two distinct decision stages to share all
+  // 128 bits of their fingerprints, so this is taken to be zero.
+  override def estimatedFalsePositiveRate: Double = 0.0
+
+  def numberOfForgottenFingerprints: Long = numberOfDisplacements
+
+  override def name: String = DuplicateDetection.hashSet
+
+  override protected def detailsForStatistics: String =
+    s"$numberOfOccupiedSlots of $numberOfSlots slots occupied"
+
+  override protected def accuracyForStatistics: String =
+    s"$numberOfForgottenFingerprints fingerprints displaced and forgotten, so duplicates of those cases are missed"
+}
+
+// A Bloom filter sized to the budget; each fingerprint sets a fixed number of
+// bits drawn from two independent hashes. As the filter fills up, its false
+// positive rate climbs, so it is cleared once the estimated rate exceeds
+// `maximumFalsePositiveRate` - this keeps novel cases from being mistaken for
+// duplicates wholesale during a long supply, at the cost of forgetting the
+// cases seen so far.
+final class BloomFilterDuplicateDetection(
+    budgetInBytes: Int,
+    maximumFalsePositiveRate: Double = 1e-3
+) extends DuplicateDetection {
+  import DuplicateDetection.powerOfTwoWithin
+
+  private val numberOfHashes = 4
+
+  private val bits: Array[Long] = new Array(
+    powerOfTwoWithin(
+      1L max (budgetInBytes / _root_.java.lang.Long.BYTES)
+    ).toInt
+  )
+
+  private val numberOfBits: Long = 64L * bits.length
+
+  private var numberOfBitsSet     = 0L
+  private var numberOfFreshStarts = 0
+
+  override def noteIfNew(
+      serialNumber: Int,
+      fingerprint: Long => Long
+  ): Boolean = {
+    val firstHash  = fingerprint(0x243f6a8885a308d3L)
+    val secondHash = fingerprint(0x13198a2e03707344L) | 1L
+
+    val isNew = setBits(firstHash, secondHash)
+
+    if (maximumFalsePositiveRate < estimatedFalsePositiveRate) {
+      JavaArrays.fill(bits, 0L)
+      numberOfBitsSet = 0L
+      numberOfFreshStarts += 1
+
+      // NOTE: the fingerprint just noted is kept, so that it is still detected
+      // as a duplicate straight after clearing.
+      setBits(firstHash, secondHash)
+    }
+
+    isNew
+  }
+
+  // Yields true if any of the bits weren't already set.
+  private def setBits(firstHash: Long, secondHash: Long): Boolean = {
+    val mask = numberOfBits - 1
+
+    var isNew     = false
+    var hashIndex = 0
+
+    while (numberOfHashes > hashIndex) {
+      val bitIndex = mixed(firstHash + hashIndex * secondHash) & mask
+      val word     = (bitIndex >>> 6).toInt
+      val bit      = 1L << (bitIndex & 63)
+
+      if (0L == (bits(word) & bit)) {
+        bits(word) |= bit
+        numberOfBitsSet += 1
+        isNew = true
+      }
+
+      hashIndex += 1
+    }
+
+    isNew
+  }
+
+  override def noteFreshStartOfInterning(): Unit = {}
+
+  override def footprintInBytes: Long =
+    bits.length.toLong * _root_.java.lang.Long.BYTES
+
+  // The chance that all of the bits for a novel fingerprint are already set.
+  override def estimatedFalsePositiveRate: Double =
+    Math.pow(numberOfBitsSet.toDouble / numberOfBits, numberOfHashes)
+
+  override def name: String = DuplicateDetection.bloomFilter
+
+  override protected def detailsForStatistics: String =
+    s"$numberOfBitsSet of $numberOfBits bits set, cleared $numberOfFreshStarts times"
+}
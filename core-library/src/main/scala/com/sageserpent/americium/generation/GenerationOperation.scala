@@ -1,10 +1,14 @@
 package com.sageserpent.americium.generation
 import cats.free.Free
-import com.sageserpent.americium.CaseFactory
+import com.google.common.hash.Hashing as GuavaHashing
+import com.sageserpent.americium.{CaseFactory, LongCaseFactory}
 import com.sageserpent.americium.generation.GenerationOperation.Syntax.prettyPrinter
 import pprint.PPrinter
 
-import scala.collection.immutable.SortedMap
+import _root_.java.nio.charset.StandardCharsets
+import scala.collection.immutable.{ArraySeq, SortedMap}
+import scala.collection.mutable
+import scala.util.DynamicVariable
 
 sealed trait GenerationOperation[Case]
 
@@ -32,10 +36,18 @@ object GenerationOperation {
             )
           )
 
-        case choice: Choice[?] =>
+        case weightedChoice: WeightedChoice[?] =>
           pprint.Tree.Apply(
             "Choice",
-            choice.choicesByCumulativeFrequency.iterator.map(treeify)
+            weightedChoice.choicesByCumulativeFrequency.iterator.map(treeify)
+          )
+
+        case UniformChoice(choices) =>
+          // Outline this as if it were the equivalent weighted choice, so
+          // that the outline doesn't depend on the representation.
+          pprint.Tree.Apply(
+            "Choice",
+            Iterator.from(1).zip(choices.iterator).map(treeify)
           )
 
         case usingDefaultToString
@@ -54,6 +66,62 @@ object GenerationOperation {
     }
   }
 
+  // Yielded in place of a result when interpreting a generation operation
+  // abandons the case being generated.
+  private[americium] case object Abandonment
+
+  // Steps through `generation` in a loop, handing each operation over to
+  // `interpret` rather than folding the generation into a monad. This is
+  // stack-safe, because `foldStep` normalises left-nested binds before
+  // handing over an operation. If `interpret` yields `Abandonment`, that is
+  // the overall result.
+  private[americium] def interpretDirectly(
+      generation: Generation[?],
+      interpret: GenerationOperation[Any] => Any
+  ): Any = {
+    var remainingGeneration: Generation[Any] =
+      generation.asInstanceOf[Generation[Any]]
+    var result: Any = null
+    var done        = false
+
+    // NOTE: these are set up once outside the loop. The continuation's
+    // argument type is existential, hence the cast.
+    val onPure: Any => Unit = { value =>
+      result = value
+      done = true
+    }
+    val onSuspend: GenerationOperation[Any] => Unit = { operation =>
+      result = interpret(operation)
+      done = true
+    }
+    val onFlatMapped: Any => Unit = { operationAndContinuation =>
+      val (operation, continuation) = operationAndContinuation
+        .asInstanceOf[(GenerationOperation[Any], Any => Generation[Any])]
+
+      interpret(operation) match {
+        case Abandonment =>
+          result = Abandonment
+          done = true
+        case value => remainingGeneration = continuation(value)
+      }
+    }
+
+    while (!done) {
+      remainingGeneration.foldStep(onPure, onSuspend, onFlatMapped)
+    }
+
+    result
+  }
+
+  // Steps through a generation, handing each of its operations over to the
+  // supplied interpretation of a single operation. This is `interpretDirectly`
+  // unless a test swaps in a reference interpretation to cross-check it.
+  private[americium] type Interpretation =
+    (Generation[?], GenerationOperation[Any] => Any) => Any
+
+  private[americium] val interpretation: DynamicVariable[Interpretation] =
+    new DynamicVariable[Interpretation](interpretDirectly(_, _))
+
   /** Utilities for generating structural representations and hashes of
     * [[Generation]] instances.
     *
@@ -82,17 +150,187 @@ object GenerationOperation {
       // Use pprint for a readable, deterministic representation
       prettyPrinter.apply(generation, height = Int.MaxValue).plainText
     }
+
+    /** Generate a compact hash of the same structure that
+      * [[structureOutline]] represents, without rendering any text.
+      *
+      * This is what is compared to detect obsolete recipes; the outline is
+      * only needed as a diagnostic once a difference has been detected.
+      */
+    def structureFingerprint: String = {
+      val hasher = GuavaHashing.murmur3_128().newHasher()
+
+      // NOTE: use an explicit stack of pending nodes, as both the `Free`
+      // structure and the values it holds can be very deep.
+      val pendingNodes = mutable.Stack[Any](generation)
+
+      // Avoid repeating the reflective lookup for each node of the same class.
+      val classUsesDefaultToString = mutable.Map.empty[Class[?], Boolean]
+
+      def includeNode(label: String, children: IterableOnce[Any]): Unit = {
+        val childNodes = children.iterator.toSeq
+
+        hasher.putString(label, StandardCharsets.UTF_8)
+        hasher.putInt(childNodes.size)
+
+        pendingNodes.pushAll(childNodes.reverseIterator)
+      }
+
+      while (pendingNodes.nonEmpty) {
+        pendingNodes.pop() match {
+          case null => includeNode("null", Iterator.empty)
+
+          case _: Function[?, ?] => includeNode("Function", Iterator.empty)
+
+          case caseFactory: CaseFactory[?] =>
+            includeNode(
+              "CaseFactory",
+              Iterator(
+                caseFactory.lowerBoundInput,
+                caseFactory.maximallyShrunkInput,
+                caseFactory.upperBoundInput
+              )
+            )
+
+          case weightedChoice: WeightedChoice[?] =>
+            includeNode(
+              "Choice",
+              weightedChoice.cumulativeFrequencies.iterator.zip(
+                weightedChoice.choices
+              )
+            )
+
+          case UniformChoice(choices) =>
+            // Fingerprint this as if it were the equivalent weighted choice,
+            // as is done for the outline.
+            includeNode("Choice", Iterator.from(1).zip(choices.iterator))
+
+          case array: Array[?] =>
+            includeNode("Array", array.iterator)
+
+          case iterable: Iterable[?] =>
+            includeNode(iterable.getClass.getName, iterable)
+
+          case product: Product =>
+            includeNode(product.productPrefix, product.productIterator)
+
+          case usingDefaultToString
+              if classUsesDefaultToString.getOrElseUpdate(
+                usingDefaultToString.getClass,
+                usingDefaultToString.getClass
+                  .getMethod("toString")
+                  .getDeclaringClass == classOf[Object]
+              ) =>
+            includeNode(usingDefaultToString.getClass.getName, Iterator.empty)
+
+          case leaf => includeNode(leaf.toString, Iterator.empty)
+        }
+      }
+
+      hasher.hash().toString
+    }
   }
 
 }
 
-// Use a sorted map keyed by cumulative frequency to implement weighted
-// choices. That idea is inspired by Scalacheck's `Gen.frequency`.
-case class Choice[Case](choicesByCumulativeFrequency: SortedMap[Int, Case])
-    extends GenerationOperation[Case]
+// A choice is resolved from a decision index in the range [0,
+// `numberOfChoices`), regardless of its representation - so recipes don't
+// depend on how a choice is represented.
+sealed trait Choice[Case] extends GenerationOperation[Case] {
+  def numberOfChoices: Int
+
+  def choiceAt(index: Int): Option[Case]
+
+  def choicesByCumulativeFrequency: SortedMap[Int, Case]
+}
+
+// Use an array of cumulative frequencies, searched by bisection, to implement
+// weighted choices. That idea is inspired by Scalacheck's `Gen.frequency`.
+case class WeightedChoice[Case](
+    cumulativeFrequencies: ArraySeq[Int],
+    choices: IndexedSeq[Case]
+) extends Choice[Case] {
+  require(cumulativeFrequencies.size == choices.size)
+
+  override def numberOfChoices: Int =
+    cumulativeFrequencies.lastOption.getOrElse(0)
+
+  override def choiceAt(index: Int): Option[Case] =
+    Option.when(0 <= index && index < numberOfChoices) {
+      // Find the first cumulative frequency that exceeds `index`; a choice
+      // with a weight of zero shares its cumulative frequency with the choice
+      // preceding it, so it is never found.
+      var lowerBound = 0
+      var upperBound = cumulativeFrequencies.size - 1
+
+      while (lowerBound < upperBound) {
+        val midPoint = (lowerBound + upperBound) >>> 1
+
+        if (index < cumulativeFrequencies(midPoint)) upperBound = midPoint
+        else lowerBound = 1 + midPoint
+      }
+
+      choices(lowerBound)
+    }
+
+  // Only used for diagnostics, so this is built on demand.
+  override lazy val choicesByCumulativeFrequency: SortedMap[Int, Case] =
+    SortedMap.from(cumulativeFrequencies.iterator.zip(choices))
+}
+
+// Uniform choices are addressed directly by the decision index, so there is no
+// need to build a map - this matters for large choices such as `characters`.
+case class UniformChoice[Case](choices: IndexedSeq[Case])
+    extends Choice[Case] {
+  override def numberOfChoices: Int = choices.size
+
+  override def choiceAt(index: Int): Option[Case] = choices.lift(index)
+
+  // Only used for diagnostics, so this is built on demand.
+  override lazy val choicesByCumulativeFrequency: SortedMap[Int, Case] =
+    SortedMap.from(LazyList.from(1).zip(choices))
+}
 
 case class Factory[Case](factory: CaseFactory[Case])
-    extends GenerationOperation[Case]
+    extends GenerationOperation[Case] {
+  // Factories whose inputs span a range that fits in a `Long` are interpreted
+  // with primitive arithmetic; this covers everything apart from big integers,
+  // big decimals and unrestricted longs. This is worked out once per factory
+  // rather than for each decision made with it, and a `LongCaseFactory`
+  // provides its bounds directly, so there is no need to go via `BigInt`.
+  lazy val longInputBounds: Option[LongInputBounds] = factory match {
+    case longCaseFactory: LongCaseFactory[?] =>
+      Option.when(
+        0 <= longCaseFactory.upperBoundLongInput - longCaseFactory.lowerBoundLongInput
+      )(
+        LongInputBounds(
+          longCaseFactory.lowerBoundLongInput,
+          longCaseFactory.upperBoundLongInput,
+          longCaseFactory.maximallyShrunkLongInput
+        )
+      )
+    case _ =>
+      val lowerBoundInput      = factory.lowerBoundInput
+      val upperBoundInput      = factory.upperBoundInput
+      val maximallyShrunkInput = factory.maximallyShrunkInput
+
+      Option.when(
+        lowerBoundInput.isValidLong && upperBoundInput.isValidLong && 0 <= upperBoundInput.toLong - lowerBoundInput.toLong
+      )(
+        LongInputBounds(
+          lowerBoundInput.toLong,
+          upperBoundInput.toLong,
+          maximallyShrunkInput.toLong
+        )
+      )
+  }
+}
+
+case class LongInputBounds(
+    lowerBound: Long,
+    upperBound: Long,
+    maximallyShrunk: Long
+)
 
 // NASTY HACK: as `Free` does not support `filter/withFilter`, reify
 // the optional results of a flat-mapped filtration; the interpreter
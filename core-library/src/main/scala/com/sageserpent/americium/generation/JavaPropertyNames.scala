@@ -1,9 +1,22 @@
 package com.sageserpent.americium.generation
 
 object JavaPropertyNames {
-  val temporaryDirectoryJavaProperty = "java.io.tmpdir"
-  val runDatabaseJavaProperty        = "trials.runDatabase"
-  val recipeJavaProperty             = "trials.recipe"
-  val recipeHashJavaProperty         = "trials.recipeHash"
-  val nondeterministicJavaProperty   = "trials.nondeterministic"
+  val temporaryDirectoryJavaProperty    = "java.io.tmpdir"
+  val runDatabaseJavaProperty           = "trials.runDatabase"
+  val recipeJavaProperty                = "trials.recipe"
+  val recipeHashJavaProperty            = "trials.recipeHash"
+  val nondeterministicJavaProperty      = "trials.nondeterministic"
+  val choiceCyclingCapacityJavaProperty = "trials.choiceCyclingCapacity"
+  val replayWriteBehindJavaProperty     = "trials.replayWriteBehindMilliseconds"
+  val storageBackendJavaProperty        = "trials.storageBackend"
+  val maximumEntriesJavaProperty        = "trials.runDatabaseMaximumEntries"
+  val maximumBytesJavaProperty          = "trials.runDatabaseMaximumBytes"
+  val timeToLiveDaysJavaProperty        = "trials.runDatabaseTimeToLiveDays"
+  val readCacheCapacityJavaProperty     = "trials.readCacheCapacity"
+  val sweepLegacyFilesJavaProperty = "trials.runDatabaseSweepLegacyFiles"
+  val maximumNumberOfDecisionStagesJavaProperty =
+    "trials.maximumNumberOfDecisionStages"
+  val duplicateDetectionJavaProperty = "trials.duplicateDetection"
+  val duplicateDetectionBudgetJavaProperty =
+    "trials.duplicateDetectionBudgetBytes"
 }
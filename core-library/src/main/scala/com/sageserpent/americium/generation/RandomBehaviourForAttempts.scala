@@ -0,0 +1,85 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.java.TrialsDefaults.legacyRandomGeneratorFactory
+import com.sageserpent.americium.utilities.RandomGeneratorAdapter
+import com.sageserpent.americium.utilities.RandomGeneratorAdapter.asScalaRandom
+
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
+import scala.util.Random
+
+// Provides the random behaviour for successive attempts at generating a case.
+// The same `randomBehaviour` is used throughout, so nothing is allocated per
+// attempt other than whatever the random generator algorithm needs to start
+// drawing afresh.
+private[generation] trait RandomBehaviourForAttempts {
+  // NOTE: only valid once an attempt has been started.
+  def randomBehaviour: Random
+
+  def startAttempt(attemptIndex: Long): Unit
+}
+
+private[generation] object RandomBehaviourForAttempts {
+  // Derives the seed for the child at `childIndex` in a tree of seeds; this is
+  // the output function of SplitMix64 applied to a per-child increment.
+  def childSeed(parentSeed: Long, childIndex: Long): Long = {
+    var result = parentSeed + (1 + childIndex) * 0x9e3779b97f4a7c15L
+    result = (result ^ (result >>> 30)) * 0xbf58476d1ce4e5b9L
+    result = (result ^ (result >>> 27)) * 0x94d049bb133111ebL
+    result ^ (result >>> 31)
+  }
+
+  // Each attempt draws on a random generator of its own, seeded with the child
+  // of `seed` keyed by the attempt index. So the randomness consumed by one
+  // attempt has no bearing on that available to any other attempt, and can be
+  // recreated independently of the others.
+  def seeded(
+      randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator],
+      seed: Long
+  ): RandomBehaviourForAttempts = new RandomBehaviourForAttempts {
+    private var randomGeneratorAdapter: RandomGeneratorAdapter = _
+
+    private var randomBehaviourForAllAttempts: Random = _
+
+    override def randomBehaviour: Random = randomBehaviourForAllAttempts
+
+    override def startAttempt(attemptIndex: Long): Unit = {
+      val randomGenerator =
+        randomGeneratorFactory.create(childSeed(seed, attemptIndex))
+
+      if (null == randomGeneratorAdapter) {
+        randomGeneratorAdapter = new RandomGeneratorAdapter(randomGenerator)
+        randomBehaviourForAllAttempts = new Random(randomGeneratorAdapter)
+      } else randomGeneratorAdapter.drawFrom(randomGenerator)
+    }
+  }
+
+  // All attempts draw on the same random generator, each carrying on from
+  // where the previous one left off.
+  def shared(sharedRandomBehaviour: Random): RandomBehaviourForAttempts =
+    new RandomBehaviourForAttempts {
+      override def randomBehaviour: Random = sharedRandomBehaviour
+
+      override def startAttempt(attemptIndex: Long): Unit = {}
+    }
+
+  // Attempts are keyed by the cycle index and the shrinkage attempt index as
+  // well as the attempt index, each being a level in the tree of seeds rooted
+  // at `seed`.
+  // NOTE: the legacy random generator is shared across all attempts instead,
+  // so that it yields the same cases for a seed as it always did.
+  def forSupply(
+      randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator],
+      seed: Long
+  ): (Int, Int) => RandomBehaviourForAttempts =
+    if (legacyRandomGeneratorFactory.name == randomGeneratorFactory.name) {
+      val randomBehaviourForAttempts =
+        shared(asScalaRandom(randomGeneratorFactory.create(seed)))
+
+      (_, _) => randomBehaviourForAttempts
+    } else { (cycleIndex, shrinkageAttemptIndex) =>
+      seeded(
+        randomGeneratorFactory,
+        childSeed(childSeed(seed, cycleIndex), shrinkageAttemptIndex)
+      )
+    }
+}
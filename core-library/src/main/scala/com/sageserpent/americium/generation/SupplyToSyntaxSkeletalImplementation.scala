@@ -1,17 +1,23 @@
 package com.sageserpent.americium.generation
 
-import cats.data.StateT
 import cats.effect.SyncIO
-import cats.~>
-import com.google.common.collect.{Ordering as _, *}
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.sageserpent.americium.TrialsScaffolding.ShrinkageStop
 import com.sageserpent.americium.generation.Decision.{
   DecisionStages,
   parseRecipe
 }
-import com.sageserpent.americium.generation.GenerationOperation.Generation
+import com.sageserpent.americium.generation.GenerationOperation.{
+  Abandonment,
+  Generation
+}
 import com.sageserpent.americium.generation.JavaPropertyNames.*
 import com.sageserpent.americium.generation.SupplyToSyntaxSkeletalImplementation.{
+  Failed,
+  Passed,
+  Rejected,
+  TrialOutcome,
+  choiceCyclingCapacityDefault,
   maximumScaleDeflationLevel,
   minimumScaleDeflationLevel
 }
@@ -27,9 +33,11 @@ import com.sageserpent.americium.java.{
   TrialsScaffolding as JavaTrialsScaffolding
 }
 import com.sageserpent.americium.storage.TrialsReproductionStorage
+import com.sageserpent.americium.storage.TrialsReproductionStorage.RecipeData
 import com.sageserpent.americium.utilities.randomEnrichment.RichRandom
 import com.sageserpent.americium.{
   CaseFactory,
+  LongCaseFactory,
   TestIntegrationContextImplementation,
   Trials,
   TrialsScaffolding as ScalaTrialsScaffolding
@@ -38,9 +46,13 @@ import com.typesafe.scalalogging.StrictLogging
 import fs2.{Pull, Stream as Fs2Stream}
 
 import _root_.java.util.Iterator as JavaIterator
+import _root_.java.util.concurrent.{
+  Callable,
+  Executors,
+  Future as JavaFuture
+}
 import _root_.java.util.function.Consumer
-import scala.annotation.tailrec
-import scala.collection.immutable.SortedMap
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
 import scala.collection.{mutable, Iterator as ScalaIterator}
 import scala.util.Random
 
@@ -48,9 +60,169 @@ object SupplyToSyntaxSkeletalImplementation {
 
   val runDatabaseDefault = "trialsRunDatabase"
 
+  val choiceCyclingCapacityDefault = 1 << 20
+
   val minimumScaleDeflationLevel = 0
 
   val maximumScaleDeflationLevel = 50
+
+  // The square root of `Long.MaxValue`, rounded down.
+  private val maximumLongThatCanBeSquared = 3037000499L
+
+  // What follows computes factory inputs from values already drawn at random,
+  // both via arbitrary-precision arithmetic and via primitive arithmetic for
+  // factories whose inputs fit in a `Long`. The two are *not* bit-identical:
+  // the primitive arithmetic rounds each intermediate result to the nearest
+  // `Double`, whereas the arbitrary-precision arithmetic works with the
+  // shortest decimal rendering of the random fraction, rounding to 34
+  // significant digits. So an input can differ by one, and by more for spans
+  // beyond 2^53 - see `FactoryInputsSpec` for examples. Recipes hold the
+  // inputs, so they still reproduce exactly; it is only the cases generated
+  // from a given seed that can differ from before the primitive arithmetic
+  // was introduced.
+
+  // Guided shrinkage - chooses a factory input `fraction` of the way from the
+  // maximally shrunk input to the guide input.
+  private[generation] def guidedFactoryInput(
+      maximallyShrunkInput: BigInt,
+      guideInput: BigInt,
+      fraction: Double
+  ): BigInt =
+    (BigDecimal(maximallyShrunkInput) + fraction * BigDecimal(
+      guideInput - maximallyShrunkInput
+    )).setScale(
+      0,
+      BigDecimal.RoundingMode.HALF_EVEN
+    ).rounded
+      .toBigInt
+
+  private[generation] def guidedLongFactoryInput(
+      maximallyShrunkInput: Long,
+      guideInput: Long,
+      fraction: Double
+  ): Long = offsetWithinBounds(
+    maximallyShrunkInput,
+    fraction * (guideInput - maximallyShrunkInput),
+    maximallyShrunkInput min guideInput,
+    maximallyShrunkInput max guideInput
+  )
+
+  private[generation] def deflatedScale(
+      maximumScale: BigDecimal,
+      level: Int
+  ): BigDecimal =
+    if (maximumScale <= Double.MaxValue)
+      maximumScale / Math.pow(
+        maximumScale.toDouble,
+        level.toDouble / maximumScaleDeflationLevel
+      )
+    else {
+      deflatedScale(Double.MaxValue, level) * deflatedScale(
+        maximumScale / Double.MaxValue,
+        level
+      )
+    }
+
+  private[generation] def deflatedLongScale(
+      maximumScale: Double,
+      level: Int
+  ): Double =
+    maximumScale / Math.pow(
+      maximumScale,
+      level.toDouble / maximumScaleDeflationLevel
+    )
+
+  // Unguided shrinkage - chooses a factory input `fraction` of half the scale
+  // away from a midpoint, on the side given by `sign`. The midpoint moves from
+  // halfway between the bounds towards the maximally shrunk input as the
+  // scale is deflated.
+  private[generation] def unguidedFactoryInput(
+      lowerBoundInput: BigInt,
+      upperBoundInput: BigInt,
+      maximallyShrunkInput: BigInt,
+      scale: BigDecimal,
+      sign: Int,
+      fraction: Double
+  ): BigInt = {
+    val upperBound: BigDecimal =
+      BigDecimal(upperBoundInput)
+    val lowerBound: BigDecimal =
+      BigDecimal(lowerBoundInput)
+    val maximallyShrunk: BigDecimal =
+      BigDecimal(maximallyShrunkInput)
+
+    val blend: BigDecimal = scale / (upperBound - lowerBound)
+
+    val midPoint: BigDecimal =
+      blend * (upperBound + lowerBound) / 2 + (1 - blend) * maximallyShrunk
+
+    val delta: BigDecimal = sign * scale * fraction / 2
+
+    (midPoint + delta)
+      .setScale(
+        0,
+        BigDecimal.RoundingMode.HALF_EVEN
+      )
+      .rounded
+      .toBigInt
+  }
+
+  // This mirrors the arbitrary-precision calculation above, but works with
+  // offsets from the maximally shrunk input so as to preserve precision close
+  // to it.
+  private[generation] def unguidedLongFactoryInput(
+      bounds: LongInputBounds,
+      scale: Double,
+      sign: Int,
+      fraction: Double
+  ): Long = {
+    val LongInputBounds(
+      lowerBoundInput,
+      upperBoundInput,
+      maximallyShrunkInput
+    ) = bounds
+
+    val blend: Double = scale / (upperBoundInput - lowerBoundInput).toDouble
+
+    val midPointOffset: Double =
+      blend * ((upperBoundInput - maximallyShrunkInput).toDouble + (lowerBoundInput - maximallyShrunkInput).toDouble) / 2
+
+    val delta: Double = sign * scale * fraction / 2
+
+    offsetWithinBounds(
+      maximallyShrunkInput,
+      midPointOffset + delta,
+      lowerBoundInput,
+      upperBoundInput
+    )
+  }
+
+  // NOTE: `offset` is rounded half-even, just like the arbitrary-precision
+  // calculations; the result is clamped to guard against loss of precision
+  // when converting between `Long` and `Double`.
+  private def offsetWithinBounds(
+      base: Long,
+      offset: Double,
+      lowerBound: Long,
+      upperBound: Long
+  ): Long = {
+    val roundedOffset = Math.rint(offset)
+
+    if (roundedOffset >= (upperBound - base).toDouble) upperBound
+    else if (roundedOffset <= (lowerBound - base).toDouble) lowerBound
+    else base + roundedOffset.toLong
+  }
+
+  // Outcomes of running a trial when supplying cases in parallel; these are
+  // recorded away from the thread driving the supply and then replayed on it.
+  private[generation] sealed trait TrialOutcome
+
+  private[generation] case object Passed extends TrialOutcome
+
+  private[generation] case object Rejected extends TrialOutcome
+
+  private[generation] case class Failed(throwable: Throwable)
+      extends TrialOutcome
 }
 
 trait SupplyToSyntaxSkeletalImplementation[Case]
@@ -69,16 +241,13 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
   protected val seed: Long
   protected val shrinkageStop: ShrinkageStop[Case]
   protected val validTrialsCheckEnabled: Boolean
+  protected val parallelism: Int
+  protected val randomGeneratorFactory
+      : RandomGeneratorFactory[_ <: RandomGenerator]
+  protected val duplicateDetectionFactory: () => DuplicateDetection
   protected val generation: Generation[_ <: Case]
   private val deflatedScaleCache =
     mutable.Map.empty[(BigDecimal, Int), BigDecimal]
-  // NOTE: this cache is maintained at the instance-level rather than in the
-  // companion object. Hoisting it into, say the companion object would cause
-  // failures of SBT when it tries to run multiple tests in parallel using
-  // multithreading.
-  private val nonEmptyToAndFromInternedDecisionStages
-      : BiMap[NonEmptyDecisionStages, InternedDecisionStages] =
-    HashBiMap.create()
 
   override def withSeed(
       seed: Long
@@ -104,32 +273,56 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
     Case
   ] with ScalaTrialsScaffolding.SupplyToSyntax[Case]
 
+  override def withParallelism(
+      parallelism: Int
+  ): JavaTrialsScaffolding.SupplyToSyntax[
+    Case
+  ] with ScalaTrialsScaffolding.SupplyToSyntax[Case]
+
+  override def withRandomGeneratorFactory(
+      randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+  ): JavaTrialsScaffolding.SupplyToSyntax[
+    Case
+  ] with ScalaTrialsScaffolding.SupplyToSyntax[Case]
+
+  override def withDuplicateDetection(
+      duplicateDetection: String,
+      budgetInBytes: Int
+  ): JavaTrialsScaffolding.SupplyToSyntax[
+    Case
+  ] with ScalaTrialsScaffolding.SupplyToSyntax[Case]
+
   // Java-only API ...
   override def supplyTo(consumer: Consumer[Case]): Unit =
     supplyTo(consumer.accept)
 
   // Scala-only API ...
-  override def supplyTo(consumer: Case => Unit): Unit = {
-    shrinkableCases()
-      .flatMap {
-        case TestIntegrationContextImplementation(
-              caze: Case,
-              caseFailureReporting: CaseFailureReporting,
-              inlinedCaseFiltration: InlinedCaseFiltration,
-              _,
-              _
-            ) =>
-          Fs2Stream.eval(SyncIO {
-            try {
-              inlinedCaseFiltration.executeInFiltrationContext(
-                () => consumer(caze),
+  override def supplyTo(consumer: Case => Unit): Unit =
+    if (1 < parallelism) supplyInParallelTo(consumer)
+    else
+      supplyTo(
+        shrinkableCases(seedForSupply()),
+        testIntegrationContext => consumer(testIntegrationContext.caze)
+      )
+
+  private def supplyTo(
+      streamedCases: StreamedCases,
+      trial: TestIntegrationContext[Case] => Unit
+  ): Unit = {
+    streamedCases
+      .flatMap { testIntegrationContext =>
+        Fs2Stream.eval(SyncIO {
+          try {
+            testIntegrationContext.inlinedCaseFiltration
+              .executeInFiltrationContext(
+                () => trial(testIntegrationContext),
                 Array.empty
               )
-            } catch {
-              case throwable: Throwable =>
-                caseFailureReporting.report(throwable)
-            }
-          })
+          } catch {
+            case throwable: Throwable =>
+              testIntegrationContext.caseFailureReporting.report(throwable)
+          }
+        })
       }
       .compile
       .drain
@@ -139,18 +332,129 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
       .get
   }
 
+  private def supplyInParallelTo(consumer: Case => Unit): Unit = {
+    // The approach is speculative: the supply proceeds sequentially on this
+    // thread as usual, but the trials for the business-as-usual cases are run
+    // ahead of time on a pool of threads. The cases for these are drawn from
+    // a second supply with the same seed that is driven as if every trial
+    // passes; as generation doesn't depend on the outcomes of trials, the
+    // first supply's cases match the second's, position for position, for as
+    // long as the second supply lasts. So each outcome is keyed by its
+    // position and is replayed into the first supply in order, thus
+    // filtration is accounted for just as it would be for sequential supply.
+    // The lookahead is limited to `parallelism` cases, and the second supply
+    // stops no later than the first, because rejections can only prolong the
+    // first supply - so no more trials are run than would be sequentially,
+    // save those that were already in flight when a trial fails. Once a trial
+    // fails, the first supply goes on to shrink sequentially exactly as it
+    // would have done without any parallelism.
+    val supplySeed = seedForSupply()
+
+    def outcomeOf(caze: Case): TrialOutcome = {
+      val inlineFilterRejection = new RuntimeException
+
+      try {
+        Trials.throwInlineFilterRejection.withValue(() =>
+          throw inlineFilterRejection
+        ) { consumer(caze) }
+
+        Passed
+      } catch {
+        case exception: RuntimeException
+            if inlineFilterRejection == exception =>
+          Rejected
+        case throwable: Throwable => Failed(throwable)
+      }
+    }
+
+    def replay(outcome: TrialOutcome): Unit = outcome match {
+      case Passed            =>
+      case Rejected          => Trials.reject()
+      case Failed(throwable) => throw throwable
+    }
+
+    val executorService = Executors.newFixedThreadPool(
+      parallelism,
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("trials-supply-%d")
+        .build()
+    )
+
+    try {
+      // NOTE: the speculative supply has to make the same decisions as the
+      // first supply, so it can't share the first supply's interning or
+      // duplicate detection - but it leaves logging statistics to the first.
+      val speculativeCases =
+        lazyListOfTestIntegrationContexts(
+          supplySeed,
+          logsStatistics = false
+        ).iterator
+
+      val pendingOutcomes = mutable.Queue.empty[JavaFuture[TrialOutcome]]
+
+      var numberOfCasesConsumed = 0
+
+      var numberOfCasesSpeculatedOn = 0
+
+      supplyTo(
+        shrinkableCases(supplySeed),
+        testIntegrationContext =>
+          if (testIntegrationContext.isPartOfShrinkage)
+            consumer(testIntegrationContext.caze)
+          else {
+            while (
+              numberOfCasesConsumed + parallelism > numberOfCasesSpeculatedOn && speculativeCases.hasNext
+            ) {
+              val caze = speculativeCases.next().caze
+
+              pendingOutcomes.enqueue(
+                executorService.submit(new Callable[TrialOutcome] {
+                  override def call(): TrialOutcome = outcomeOf(caze)
+                })
+              )
+
+              numberOfCasesSpeculatedOn += 1
+            }
+
+            numberOfCasesConsumed += 1
+
+            if (pendingOutcomes.nonEmpty)
+              replay(pendingOutcomes.dequeue().get())
+            else consumer(testIntegrationContext.caze)
+          }
+      )
+    } finally {
+      executorService.shutdownNow()
+    }
+  }
+
+  private def seedForSupply(): Long = {
+    val nonDeterministic = Option(
+      System.getProperty(nondeterministicJavaProperty)
+    ).fold(ifEmpty = false)(_.toBoolean)
+
+    if (nonDeterministic) Random.nextLong() else seed
+  }
+
   override def testIntegrationContexts()
       : CrossApiIterator[TestIntegrationContext[Case]] =
-    CrossApiIterator.from(lazyListOfTestIntegrationContexts().iterator)
+    CrossApiIterator.from(
+      lazyListOfTestIntegrationContexts(seedForSupply()).iterator
+    )
 
   override def asIterator(): JavaIterator[Case] with ScalaIterator[Case] =
     CrossApiIterator.from(
-      lazyListOfTestIntegrationContexts().map(_.caze).iterator
+      lazyListOfTestIntegrationContexts(seedForSupply())
+        .map(_.caze)
+        .iterator
     )
 
-  private def lazyListOfTestIntegrationContexts()
-      : LazyList[TestIntegrationContext[Case]] = {
-    LazyList.unfold(shrinkableCases()) { streamedCases =>
+  private def lazyListOfTestIntegrationContexts(
+      seed: Long,
+      logsStatistics: Boolean = true
+  ): LazyList[TestIntegrationContext[Case]] = {
+    LazyList.unfold(shrinkableCases(seed, logsStatistics)) { streamedCases =>
       streamedCases.pull.uncons1
         .flatMap {
           case None              => Pull.done
@@ -170,12 +474,24 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
     }
   }
 
-  private def shrinkableCases(): StreamedCases = {
+  private def shrinkableCases(
+      seed: Long,
+      logsStatistics: Boolean = true
+  ): StreamedCases = {
     // NOTE: don't hoist this into the overall class, as this would retain state
     // between separate uses of a supply syntax: see:
     // https://github.com/sageserpent-open/americium/issues/255.
-    val potentialDuplicates =
-      mutable.Set.empty[DecisionStagesInReverseOrder]
+    val potentialDuplicates = duplicateDetectionFactory()
+
+    // NOTE: as with `potentialDuplicates`, this is confined to a single
+    // supply of cases so that it doesn't grow across separate uses; it is
+    // also bounded within a supply, as it starts afresh once over budget.
+    val decisionStagesInterning = new DecisionStagesInterning(
+      Option(System.getProperty(maximumNumberOfDecisionStagesJavaProperty))
+        .fold(ifEmpty =
+          DecisionStagesInterning.maximumNumberOfDecisionStagesDefault
+        )(_.toInt)
+    )
 
     var shrinkageCasesFromDownstream: Option[StreamedCases] = None
 
@@ -230,12 +546,8 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
         caseData.decisionStagesInReverseOrder.reverse
       )
 
-      val nonDeterministic = Option(
-        System.getProperty(nondeterministicJavaProperty)
-      ).fold(ifEmpty = false)(_.toBoolean)
-
-      val randomBehaviour =
-        if (nonDeterministic) new Random else new Random(seed)
+      val randomBehaviourForAttempts =
+        RandomBehaviourForAttempts.forSupply(randomGeneratorFactory, seed)
 
       def shrink(
           caseData: CaseData,
@@ -262,8 +574,9 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
 
           val mainProcessing = cases(
             potentialDuplicates,
+            decisionStagesInterning,
             numberOfDecisionStages,
-            randomBehaviour,
+            randomBehaviourForAttempts(cycleIndex, shrinkageAttemptIndex),
             scaleDeflationLevel = Some(scaleDeflationLevel),
             shrinkageIsImproving = {
               case (decisionStagesInReverseOrder, factoryInputsCost) =>
@@ -273,7 +586,8 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
               0 < numberOfShrinksInPanicModeIncludingThisOne
             )(caseData.decisionStagesInReverseOrder.reverse),
             shrinkageAttemptIndex = shrinkageAttemptIndex,
-            cycleIndex = cycleIndex
+            cycleIndex = cycleIndex,
+            logsStatistics = logsStatistics
           ) match {
             case (cases, inlinedCaseFiltration) =>
               cases.flatMap { case potentialShrunkCaseData =>
@@ -341,9 +655,12 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
                         )
                       },
                     inlinedCaseFiltration = inlinedCaseFiltration,
-                    isPartOfShrinkage = true,
-                    recipe =
-                      potentialShrunkCaseData.decisionStagesInReverseOrder.reverse.longhandRecipe
+                    isPartOfShrinkage = true
+                  )(
+                    recipeRendering = () =>
+                      potentialShrunkCaseData.decisionStagesInReverseOrder.reverse.compactRecipe,
+                    recipeHashRendering = () =>
+                      potentialShrunkCaseData.decisionStagesInReverseOrder.reverse.recipeHash
                   )
                 )
               }
@@ -355,13 +672,15 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
 
       val businessAsUsualCases: StreamedCases = cases(
         potentialDuplicates,
+        decisionStagesInterning,
         complexityLimit,
-        randomBehaviour,
+        randomBehaviourForAttempts(0, 0),
         scaleDeflationLevel = None,
         shrinkageIsImproving = _ => true,
         decisionStagesToGuideShrinkage = None,
         shrinkageAttemptIndex = 0,
-        cycleIndex = 0
+        cycleIndex = 0,
+        logsStatistics = logsStatistics
       ) match {
         case (cases, inlinedCaseFiltration) =>
           cases.map { case caseData =>
@@ -387,9 +706,12 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
                 )
               },
               inlinedCaseFiltration = inlinedCaseFiltration,
-              isPartOfShrinkage = false,
-              recipe =
-                caseData.decisionStagesInReverseOrder.reverse.longhandRecipe
+              isPartOfShrinkage = false
+            )(
+              recipeRendering = () =>
+                caseData.decisionStagesInReverseOrder.reverse.compactRecipe,
+              recipeHashRendering = () =>
+                caseData.decisionStagesInReverseOrder.reverse.recipeHash
             )
           }
       }
@@ -423,18 +745,22 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
             runnable.run()
             true
         },
-        isPartOfShrinkage = false,
-        recipe = recipe
+        isPartOfShrinkage = false
+      )(
+        recipeRendering = () => recipe,
+        recipeHashRendering = () => decisionStages.recipeHash
       )
     }
 
-    def retrieveValidatedRecipe(
-        trialsReproductionStorage: TrialsReproductionStorage
-    )(recipeHash: String): String = {
-      val recipeData =
-        trialsReproductionStorage.recipeDataFromRecipeHash(recipeHash)
+    def validatedRecipe(
+        recipeHash: String,
+        recipeData: RecipeData
+    ): String = {
+      val recipeIsObsolete = recipeData.structureFingerprint.fold(ifEmpty =
+        recipeData.structureOutline.exists(generation.structureOutline != _)
+      )(structureFingerprint != _)
 
-      if (generation.structureOutline != recipeData.structureOutline) {
+      if (recipeIsObsolete) {
         val diagnostic = s"""
                 |Obsolete recipe detected!
                 |
@@ -451,10 +777,10 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
                 |
                 |Recipe:
                 |
-                |${recipeData.recipe}
+                |${parseRecipe(recipeData.recipe).longhandRecipe}
                 |
                 |Expected generation structure:
-                |${recipeData.structureOutline}
+                |${recipeData.structureOutline.getOrElse("Only recorded as a fingerprint.")}
                 |
                 |Current test's generation structure:
                 |${generation.structureOutline}
@@ -470,10 +796,13 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
 
     Option(System.getProperty(recipeHashJavaProperty))
       .map { recipeHash =>
-        val recipe =
-          retrieveValidatedRecipe(
-            TrialsReproductionStorage.trialsReproductionStorage
-          )(recipeHash)
+        // NOTE: this also accepts a legacy recipe hash, as recipe data is
+        // stored under whatever hash was current when it was recorded.
+        val recipe = validatedRecipe(
+          recipeHash,
+          TrialsReproductionStorage.trialsReproductionStorage
+            .recipeDataFromRecipeHash(recipeHash)
+        )
 
         carryOnButSwitchToShrinkageApproachOnCaseFailure(
           Fs2Stream.emit(testIntegrationContextReproducing(recipe))
@@ -484,10 +813,12 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
           .map { recipe =>
             val decisionStages = Decision.parseRecipe(recipe)
             val recipeHash     = decisionStages.recipeHash
-            val longhandRecipe = try {
-              retrieveValidatedRecipe(
+            val storedRecipe   = try {
+              validatedRecipe(
+                recipeHash,
                 TrialsReproductionStorage.trialsReproductionStorage
-              )(recipeHash)
+                  .recipeDataFromDecisionStages(decisionStages)
+              )
             } catch {
               case exception: RecipeIsNotPresentException =>
                 logger.warn(s"""
@@ -503,12 +834,12 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
                                    |Carrying on anyway...
                                    |""".stripMargin)
 
-                decisionStages.longhandRecipe
+                decisionStages.compactRecipe
             }
 
             carryOnButSwitchToShrinkageApproachOnCaseFailure(
               Fs2Stream
-                .emit(testIntegrationContextReproducing(longhandRecipe))
+                .emit(testIntegrationContextReproducing(storedRecipe))
             ).stream
           }
       )
@@ -520,14 +851,16 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
   }
 
   private def cases(
-      potentialDuplicates: mutable.Set[DecisionStagesInReverseOrder],
+      potentialDuplicates: DuplicateDetection,
+      decisionStagesInterning: DecisionStagesInterning,
       complexityLimit: Int,
-      randomBehaviour: Random,
+      randomBehaviourForAttempts: RandomBehaviourForAttempts,
       scaleDeflationLevel: Option[Int],
       shrinkageIsImproving: ShrinkageIsImproving,
       decisionStagesToGuideShrinkage: Option[DecisionStages],
       shrinkageAttemptIndex: Int,
-      cycleIndex: Int
+      cycleIndex: Int,
+      logsStatistics: Boolean
   ): (
       Fs2Stream[SyncIO, CaseData],
       InlinedCaseFiltration
@@ -540,41 +873,64 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
       )
     )
 
-    case class State(
-        decisionStagesToGuideShrinkage: Option[DecisionStages],
-        decisionStagesInReverseOrder: DecisionStagesInReverseOrder,
-        complexity: Int,
-        cost: BigInt,
-        nextUniqueId: Int
+    // NOTE: this draws afresh for each attempt at generating a case.
+    def randomBehaviour: Random = randomBehaviourForAttempts.randomBehaviour
+
+    // NOTE: capture this up front, as the cases are generated lazily.
+    val interpretation = GenerationOperation.interpretation.value
+
+    var attemptIndex = 0L
+
+    // The state of interpreting `generation` - this is updated in place as the
+    // operations are interpreted, rather than copying the state per decision.
+    final class Cursor(
+        var decisionStagesToGuideShrinkage: Option[DecisionStages],
+        var decisionStagesInReverseOrder: DecisionStagesInReverseOrder,
+        var complexity: Int,
+        var cost: BigInt,
+        var nextUniqueId: Int
     ) {
       def update(
           remainingGuidance: Option[DecisionStages],
           decision: Decision,
           costIncrement: BigInt = BigInt(0)
-      ): State = copy(
-        decisionStagesToGuideShrinkage = remainingGuidance,
+      ): Unit = {
+        decisionStagesToGuideShrinkage = remainingGuidance
         decisionStagesInReverseOrder =
-          decisionStagesInReverseOrder.addLatest(decision),
-        complexity = 1 + complexity,
+          decisionStagesInReverseOrder.addLatest(
+            decision,
+            decisionStagesInterning
+          )
+        complexity = 1 + complexity
         cost = cost + costIncrement
-      )
+      }
 
-      def uniqueId(): (State, Int) =
-        copy(nextUniqueId = 1 + nextUniqueId) -> nextUniqueId
-    }
+      def updateWithLongFactoryInput(
+          remainingGuidance: Option[DecisionStages],
+          input: Long,
+          costIncrement: BigInt
+      ): Unit = {
+        decisionStagesToGuideShrinkage = remainingGuidance
+        decisionStagesInReverseOrder =
+          decisionStagesInReverseOrder.addLatestLongFactoryInput(
+            input,
+            decisionStagesInterning
+          )
+        complexity = 1 + complexity
+        cost = cost + costIncrement
+      }
 
-    object State {
-      val initial = new State(
-        decisionStagesToGuideShrinkage = decisionStagesToGuideShrinkage,
-        decisionStagesInReverseOrder = NoDecisionStages,
-        complexity = 0,
-        cost = BigInt(0),
-        nextUniqueId = 0
-      )
-    }
+      def uniqueId(): Int = {
+        val uniqueId = nextUniqueId
+        nextUniqueId = 1 + nextUniqueId
+        uniqueId
+      }
 
-    type StateUpdating[Case] =
-      StateT[Option, State, Case]
+      // NOTE: this is called *prior* to the complexity being potentially
+      // increased by one, hence the strong inequality below;
+      // `complexityLimit` *is* inclusive.
+      def complexityIsNotTooLarge: Boolean = complexity < complexityLimit
+    }
 
     // NASTY HACK: what follows is a hacked alternative to using the reader
     // monad whereby the injected context is *mutable*, but at least it's
@@ -582,264 +938,307 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
     // closure over `randomBehaviour`. The reified `FiltrationResult` values
     // are also handled by the interpreter too. Read 'em and weep!
 
-    sealed trait Possibilities
+    val choiceCycling = new ChoiceCycling(
+      Option(System.getProperty(choiceCyclingCapacityJavaProperty))
+        .fold(ifEmpty = choiceCyclingCapacityDefault)(_.toInt)
+    )
+
+    // Choice cycling is keyed by serial numbers, so has to be cleared whenever
+    // the interning starts afresh - possibly on behalf of another stream of
+    // cases sharing the same interning.
+    var epochOfChoiceCycling = decisionStagesInterning.epoch
 
-    case class Choices(possibleIndices: LazyList[Int]) extends Possibilities
+    // The operations are interpreted against a cursor, yielding either a
+    // result or `Abandonment` if the case has to be abandoned.
+    def interpretChoice[ArbitraryCase](
+        choice: Choice[ArbitraryCase],
+        cursor: Cursor
+    ): Any = {
+      val numberOfChoices = choice.numberOfChoices
+      if (0 < numberOfChoices)
+        cursor.decisionStagesToGuideShrinkage match {
+          case Some(ChoiceOf(guideIndex) :: remainingGuidance)
+              if guideIndex < numberOfChoices =>
+            // Guided shrinkage - use the same choice index as the one in the
+            // guidance decision stages.
+            cursor.update(Some(remainingGuidance), ChoiceOf(guideIndex))
+
+            choice.choiceAt(guideIndex).get
+          case _ if cursor.complexityIsNotTooLarge =>
+            // Unguided shrinkage isn't applicable to a choice - just choose an
+            // index and make sure to cycle in a fair and random way through
+            // the alternative choice index values that could follow the
+            // preceding decision stages each time this code block is
+            // executed.
+            val index = choiceCycling.nextIndex(
+              cursor.decisionStagesInReverseOrder.serialNumber,
+              randomBehaviour
+                .buildPseudoRandomPermutationOfIntegersFromZeroToOneLessThan(
+                  numberOfChoices
+                )
+            )
 
-    val possibilitiesThatFollowSomeChoiceOfDecisionStages =
-      mutable.Map.empty[DecisionStagesInReverseOrder, Possibilities]
+            cursor.update(None, ChoiceOf(index))
 
-    def liftUnitIfTheComplexityIsNotTooLarge(
-        state: State
-    ): StateUpdating[Unit] = {
-      // NOTE: this is called *prior* to the complexity being
-      // potentially increased by one, hence the strong inequality
-      // below; `complexityLimit` *is* inclusive.
-      if (state.complexity < complexityLimit)
-        StateT.pure(())
-      else
-        StateT.liftF[Option, State, Unit](
-          None
-        )
+            choice.choiceAt(index).get
+          case _ => Abandonment
+        }
+      else Abandonment
     }
 
-    def interpretChoice[ArbitraryCase](
-        choicesByCumulativeFrequency: SortedMap[
-          Int,
-          ArbitraryCase
-        ]
-    ): StateUpdating[ArbitraryCase] = {
-      val numberOfChoices =
-        choicesByCumulativeFrequency.keys.lastOption.getOrElse(0)
-      if (0 < numberOfChoices)
-        StateT
-          .get[Option, State]
-          .flatMap(state =>
-            state.decisionStagesToGuideShrinkage match {
-              case Some(ChoiceOf(guideIndex) :: remainingGuidance)
-                  if guideIndex < numberOfChoices =>
-                // Guided shrinkage - use the same choice index as the one in
-                // the guidance decision stages.
-                for {
-                  _ <- StateT
-                    .set[Option, State](
-                      state.update(
-                        Some(remainingGuidance),
-                        ChoiceOf(guideIndex)
-                      )
-                    )
-                } yield choicesByCumulativeFrequency
-                  .minAfter(1 + guideIndex)
-                  .get
-                  ._2
-              case _ =>
-                // Unguided shrinkage isn't applicable to a choice - just choose
-                // an index and make sure to cycle in a fair and random way
-                // through the alternative choice index values that could follow
-                // the preceding decision stages each time this code block is
-                // executed.
-                for {
-                  _ <- liftUnitIfTheComplexityIsNotTooLarge(state)
-                  index #:: remainingPossibleIndices =
-                    (possibilitiesThatFollowSomeChoiceOfDecisionStages
-                      .get(
-                        state.decisionStagesInReverseOrder
-                      ) match {
-                      case Some(Choices(possibleIndices))
-                          if possibleIndices.nonEmpty =>
-                        possibleIndices
-                      case _ =>
-                        randomBehaviour
-                          .buildRandomSequenceOfDistinctIntegersFromZeroToOneLessThan(
-                            numberOfChoices
-                          )
-                    }): @unchecked
-
-                  _ <- StateT
-                    .set[Option, State](
-                      state.update(None, ChoiceOf(index))
-                    )
-                } yield {
-                  possibilitiesThatFollowSomeChoiceOfDecisionStages(
-                    state.decisionStagesInReverseOrder
-                  ) = Choices(remainingPossibleIndices)
-                  choicesByCumulativeFrequency
-                    .minAfter(1 + index)
-                    .get
-                    ._2
-                }
-            }
-          )
-      else StateT.liftF(None)
+    def inputIsWithinBounds(
+        factory: CaseFactory[?],
+        longInputBounds: Option[LongInputBounds],
+        input: BigInt
+    ): Boolean =
+      longInputBounds.fold(ifEmpty =
+        factory.lowerBoundInput <= input && factory.upperBoundInput >= input
+      )(bounds =>
+        input.isValidLong && bounds.lowerBound <= input.toLong && bounds.upperBound >= input.toLong
+      )
+
+    def costOf(input: BigInt, factory: CaseFactory[?]): BigInt =
+      (input - factory.maximallyShrunkInput).pow(2)
+
+    def costOfLongInput(input: Long, bounds: LongInputBounds): BigInt = {
+      val difference = input - bounds.maximallyShrunk
+
+      // Avoid overflow when squaring.
+      if (Math.abs(difference) <= maximumLongThatCanBeSquared)
+        BigInt(difference * difference)
+      else BigInt(difference).pow(2)
     }
 
     def deflatedScale(maximumScale: BigDecimal, level: Int): BigDecimal =
       deflatedScaleCache.getOrElseUpdate(
-        maximumScale -> level, {
-          if (maximumScale <= Double.MaxValue)
-            maximumScale / Math.pow(
-              maximumScale.toDouble,
-              level.toDouble / maximumScaleDeflationLevel
+        maximumScale -> level,
+        SupplyToSyntaxSkeletalImplementation.deflatedScale(maximumScale, level)
+      )
+
+    // Guided shrinkage - can choose a factory input somewhere between the one
+    // in the guidance decision stages and the shrinkage target's value.
+    def guidedFactoryInput(
+        factory: CaseFactory[?],
+        guideInput: BigInt
+    ): BigInt =
+      SupplyToSyntaxSkeletalImplementation.guidedFactoryInput(
+        factory.maximallyShrunkInput,
+        guideInput,
+        randomBehaviour.nextDouble()
+      )
+
+    def guidedLongFactoryInput(
+        bounds: LongInputBounds,
+        guideInput: Long
+    ): Long =
+      SupplyToSyntaxSkeletalImplementation.guidedLongFactoryInput(
+        bounds.maximallyShrunk,
+        guideInput,
+        randomBehaviour.nextDouble()
+      )
+
+    // Unguided shrinkage - choose an input between lower and upper bounds that
+    // tighten towards the shrinkage target value as the level of shrinkage
+    // increases.
+    def unguidedFactoryInput(factory: CaseFactory[?]): BigInt = {
+      val maximumScale: BigDecimal =
+        BigDecimal(factory.upperBoundInput) - BigDecimal(
+          factory.lowerBoundInput
+        )
+
+      if (
+        scaleDeflationLevel.fold(true)(
+          maximumScaleDeflationLevel > _
+        ) && 0 < maximumScale
+      ) {
+        // Calibrate the scale to come out at around one
+        // at maximum shrinkage, even though the guard
+        // clause above handles maximum shrinkage
+        // explicitly. Also handle an explicit scale
+        // deflation level of zero in the same manner as
+        // the implicit situation.
+        val scale: BigDecimal =
+          scaleDeflationLevel
+            .filter(minimumScaleDeflationLevel < _)
+            .fold(maximumScale)(level => deflatedScale(maximumScale, level))
+
+        val sign =
+          if (randomBehaviour.nextBoolean()) 1 else -1
+
+        SupplyToSyntaxSkeletalImplementation.unguidedFactoryInput(
+          factory.lowerBoundInput,
+          factory.upperBoundInput,
+          factory.maximallyShrunkInput,
+          scale,
+          sign,
+          randomBehaviour.nextDouble()
+        )
+      } else { factory.maximallyShrunkInput }
+    }
+
+    def unguidedLongFactoryInput(bounds: LongInputBounds): Long = {
+      val maximumScale: Double =
+        (bounds.upperBound - bounds.lowerBound).toDouble
+
+      if (
+        scaleDeflationLevel.fold(true)(
+          maximumScaleDeflationLevel > _
+        ) && 0 < maximumScale
+      ) {
+        val scale: Double =
+          scaleDeflationLevel
+            .filter(minimumScaleDeflationLevel < _)
+            .fold(maximumScale)(level =>
+              SupplyToSyntaxSkeletalImplementation
+                .deflatedLongScale(maximumScale, level)
             )
-          else {
-            deflatedScale(Double.MaxValue, level) * deflatedScale(
-              maximumScale / Double.MaxValue,
-              level
+
+        val sign =
+          if (randomBehaviour.nextBoolean()) 1 else -1
+
+        SupplyToSyntaxSkeletalImplementation.unguidedLongFactoryInput(
+          bounds,
+          scale,
+          sign,
+          randomBehaviour.nextDouble()
+        )
+      } else bounds.maximallyShrunk
+    }
+
+    // A `LongCaseFactory` is handed its input as is; any other factory whose
+    // input span fits in a `Long` still needs a `BigInt`.
+    def caseFromLongInput(factory: CaseFactory[?], input: Long): Any =
+      factory match {
+        case longCaseFactory: LongCaseFactory[?] => longCaseFactory(input)
+        case _                                   => factory(BigInt(input))
+      }
+
+    def interpretFactory[ArbitraryCase](
+        factoryOperation: Factory[ArbitraryCase],
+        cursor: Cursor
+    ): Any = {
+      val factory         = factoryOperation.factory
+      val longInputBounds = factoryOperation.longInputBounds
+
+      cursor.decisionStagesToGuideShrinkage match {
+        case Some(
+              FactoryInputOf(guideInput) :: remainingGuidance
             )
+            if (remainingGuidance.forall(_ match {
+              case _: FactoryInputOf => false
+              case _: ChoiceOf       => true
+            }) || 1 < randomBehaviour
+              .chooseAnyNumberFromOneTo(
+                1 + remainingGuidance
+                  .filter(_ match {
+                    case _: FactoryInputOf => true
+                    case _: ChoiceOf       => false
+                  })
+                  .size
+              )) && inputIsWithinBounds(
+                factory,
+                longInputBounds,
+                guideInput
+              ) =>
+          longInputBounds match {
+            case Some(bounds) =>
+              val input = guidedLongFactoryInput(bounds, guideInput.toLong)
+
+              cursor.updateWithLongFactoryInput(
+                Some(remainingGuidance),
+                input,
+                costOfLongInput(input, bounds)
+              )
+
+              caseFromLongInput(factory, input)
+            case None =>
+              val input = guidedFactoryInput(factory, guideInput)
+
+              cursor.update(
+                Some(remainingGuidance),
+                FactoryInputOf(input),
+                costOf(input, factory)
+              )
+
+              factory(input)
           }
-        }
-      )
+        case _ if cursor.complexityIsNotTooLarge =>
+          longInputBounds match {
+            case Some(bounds) =>
+              val input = unguidedLongFactoryInput(bounds)
+
+              cursor.updateWithLongFactoryInput(
+                cursor.decisionStagesToGuideShrinkage.map(_.tail),
+                input,
+                costOfLongInput(input, bounds)
+              )
 
-    def interpretFactory[ArbitraryCase](
-        factory: CaseFactory[ArbitraryCase]
-    ): StateUpdating[ArbitraryCase] = {
-      StateT
-        .get[Option, State]
-        .flatMap(state =>
-          state.decisionStagesToGuideShrinkage match {
-            case Some(
-                  FactoryInputOf(guideInput) :: remainingGuidance
-                )
-                if (remainingGuidance.forall(_ match {
-                  case _: FactoryInputOf => false
-                  case _: ChoiceOf       => true
-                }) || 1 < randomBehaviour
-                  .chooseAnyNumberFromOneTo(
-                    1 + remainingGuidance
-                      .filter(_ match {
-                        case _: FactoryInputOf => true
-                        case _: ChoiceOf       => false
-                      })
-                      .size
-                  )) && factory.lowerBoundInput <= guideInput && factory.upperBoundInput >= guideInput =>
-              // Guided shrinkage - can choose a factory input somewhere between
-              // the one in the guidance decision stages and the shrinkage
-              // target's value.
-              val input: BigInt =
-                (BigDecimal(factory.maximallyShrunkInput) + randomBehaviour
-                  .nextDouble() * BigDecimal(
-                  guideInput - factory.maximallyShrunkInput
-                )).setScale(
-                  0,
-                  BigDecimal.RoundingMode.HALF_EVEN
-                ).rounded
-                  .toBigInt
-
-              for {
-                _ <- StateT.set[Option, State](
-                  state.update(
-                    Some(remainingGuidance),
-                    FactoryInputOf(input),
-                    (input - factory.maximallyShrunkInput)
-                      .pow(2)
-                  )
-                )
-              } yield factory(input)
-            case _ =>
-              // Unguided shrinkage - choose an input between lower and upper
-              // bounds that tighten towards the shrinkage target value as the
-              // level of shrinkage increases.
-              for {
-                _ <- liftUnitIfTheComplexityIsNotTooLarge(state)
-                input: BigInt = {
-                  val upperBoundInput: BigDecimal =
-                    BigDecimal(factory.upperBoundInput)
-                  val lowerBoundInput: BigDecimal =
-                    BigDecimal(factory.lowerBoundInput)
-                  val maximallyShrunkInput: BigDecimal =
-                    BigDecimal(factory.maximallyShrunkInput)
-
-                  val maximumScale: BigDecimal =
-                    upperBoundInput - lowerBoundInput
-
-                  if (
-                    scaleDeflationLevel.fold(true)(
-                      maximumScaleDeflationLevel > _
-                    ) && 0 < maximumScale
-                  ) {
-                    // Calibrate the scale to come out at around one
-                    // at maximum shrinkage, even though the guard
-                    // clause above handles maximum shrinkage
-                    // explicitly. Also handle an explicit scale
-                    // deflation level of zero in the same manner as
-                    // the implicit situation.
-                    val scale: BigDecimal =
-                      scaleDeflationLevel
-                        .filter(minimumScaleDeflationLevel < _)
-                        .fold(maximumScale)(level =>
-                          deflatedScale(maximumScale, level)
-                        )
-                    val blend: BigDecimal = scale / maximumScale
-
-                    val midPoint: BigDecimal =
-                      blend * (upperBoundInput + lowerBoundInput) / 2 + (1 - blend) * maximallyShrunkInput
-
-                    val sign =
-                      if (randomBehaviour.nextBoolean()) 1 else -1
-
-                    val delta: BigDecimal =
-                      sign * scale * randomBehaviour
-                        .nextDouble() / 2
-
-                    (midPoint + delta)
-                      .setScale(
-                        0,
-                        BigDecimal.RoundingMode.HALF_EVEN
-                      )
-                      .rounded
-                      .toBigInt
-                  } else { factory.maximallyShrunkInput }
-                }
-                _ <- StateT.set[Option, State](
-                  state.update(
-                    state.decisionStagesToGuideShrinkage
-                      .map(_.tail),
-                    FactoryInputOf(input),
-                    (input - factory.maximallyShrunkInput)
-                      .pow(2)
-                  )
-                )
-              } yield factory(input)
+              caseFromLongInput(factory, input)
+            case None =>
+              val input = unguidedFactoryInput(factory)
+
+              cursor.update(
+                cursor.decisionStagesToGuideShrinkage.map(_.tail),
+                FactoryInputOf(input),
+                costOf(input, factory)
+              )
+
+              factory(input)
           }
-        )
+        case _ => Abandonment
+      }
     }
-    def interpreter(): GenerationOperation ~> StateUpdating =
-      new (GenerationOperation ~> StateUpdating) {
-        override def apply[ArbitraryCase](
-            generationOperation: GenerationOperation[ArbitraryCase]
-        ): StateUpdating[ArbitraryCase] =
-          generationOperation match {
-            case Choice(choicesByCumulativeFrequency) =>
-              interpretChoice(choicesByCumulativeFrequency)
-
-            case Factory(factory) =>
-              interpretFactory(factory)
-
-            case FiltrationResult(result) =>
-              StateT.liftF(result)
-
-            case NoteComplexity =>
-              for {
-                state <- StateT.get[Option, State]
-              } yield state.complexity
-
-            case ResetComplexity(complexity)
-                // NOTE: only when *not* shrinking.
-                if scaleDeflationLevel.isEmpty =>
-              for {
-                _ <- StateT.modify[Option, State](
-                  _.copy(complexity = complexity)
-                )
-              } yield ()
 
-            case ResetComplexity(_) =>
-              StateT.pure(())
+    def interpret[ArbitraryCase](
+        generationOperation: GenerationOperation[ArbitraryCase],
+        cursor: Cursor
+    ): Any =
+      generationOperation match {
+        case choice: Choice[ArbitraryCase] =>
+          interpretChoice(choice, cursor)
 
-            case UniqueId =>
-              StateT[Option, State, Int](state => Some(state.uniqueId()))
-          }
+        case factory: Factory[ArbitraryCase] =>
+          interpretFactory(factory, cursor)
+
+        case FiltrationResult(result) =>
+          result.getOrElse(Abandonment)
+
+        case NoteComplexity =>
+          cursor.complexity
+
+        case ResetComplexity(complexity)
+            // NOTE: only when *not* shrinking.
+            if scaleDeflationLevel.isEmpty =>
+          cursor.complexity = complexity
+
+        case ResetComplexity(_) =>
+
+        case UniqueId =>
+          cursor.uniqueId()
       }
 
+    def interpretGeneration(): Option[CaseData] = {
+      val cursor = new Cursor(
+        decisionStagesToGuideShrinkage = decisionStagesToGuideShrinkage,
+        decisionStagesInReverseOrder = NoDecisionStages,
+        complexity = 0,
+        cost = BigInt(0),
+        nextUniqueId = 0
+      )
+
+      interpretation(generation, interpret(_, cursor)) match {
+        case Abandonment => None
+        case caze =>
+          Some(
+            CaseData(
+              caze.asInstanceOf[Case],
+              cursor.decisionStagesInReverseOrder,
+              cursor.cost
+            )
+          )
+      }
+    }
+
     {
       val caseSupplyCycle = new CaseSupplyCycle {
         override def numberOfPreviousCycles(): Int = cycleIndex
@@ -923,23 +1322,30 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
           if (casesLimitStrategy.moreToDo())
             Fs2Stream
               .eval(SyncIO {
-                generation
-                  .foldMap(interpreter())
-                  .run(State.initial) match {
-                  case Some(
-                        (
-                          State(_, decisionStages, _, factoryInputsCost, _),
-                          caze
-                        )
-                      )
-                      if potentialDuplicates
-                        .add(decisionStages) && shrinkageIsImproving(
-                        decisionStages,
-                        factoryInputsCost
+                randomBehaviourForAttempts.startAttempt(attemptIndex)
+                attemptIndex += 1
+
+                // NOTE: this is between cases, so it is safe to start afresh.
+                if (decisionStagesInterning.startAfreshIfOverBudget())
+                  potentialDuplicates.noteFreshStartOfInterning()
+
+                if (epochOfChoiceCycling != decisionStagesInterning.epoch) {
+                  choiceCycling.clear()
+                  epochOfChoiceCycling = decisionStagesInterning.epoch
+                }
+
+                interpretGeneration() match {
+                  case Some(caseData)
+                      if potentialDuplicates.noteIfNew(
+                        caseData.decisionStagesInReverseOrder.serialNumber,
+                        caseData.decisionStagesInReverseOrder.fingerprint
+                      ) && shrinkageIsImproving(
+                        caseData.decisionStagesInReverseOrder,
+                        caseData.cost
                       ) =>
                     casesLimitStrategy.noteEmissionOfCase()
 
-                    Some(CaseData(caze, decisionStages, factoryInputsCost))
+                    Some(caseData)
                   case _ =>
                     casesLimitStrategy.noteStarvation()
 
@@ -950,12 +1356,19 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
           else Fs2Stream.empty
         })
 
-      emitCases() -> inlinedCaseFiltration
+      emitCases().onFinalize(SyncIO {
+        if (logsStatistics) {
+          choiceCycling.logStatistics()
+          potentialDuplicates.logStatistics()
+        }
+      }) -> inlinedCaseFiltration
     }
   }
 
   protected def reproduce(decisionStages: DecisionStages): Case
 
+  protected def structureFingerprint: String
+
   protected def raiseTrialException(
       trialsReproductionStorage: Option[TrialsReproductionStorage],
       throwable: Throwable,
@@ -963,65 +1376,63 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
       decisionStages: DecisionStages
   ): StreamedCases
 
-  private def interned(
-      nonEmptyDecisionStages: NonEmptyDecisionStages
-  ): InternedDecisionStages =
-    Option(
-      nonEmptyToAndFromInternedDecisionStages.computeIfAbsent(
-        nonEmptyDecisionStages,
-        _ => {
-          val freshIndex = nonEmptyToAndFromInternedDecisionStages.size
-          InternedDecisionStages(
-            index = freshIndex,
-            size = nonEmptyDecisionStages.size
-          )
-        }
-      )
-    ).get
-
   sealed trait DecisionStagesInReverseOrder {
     def nonEmpty: Boolean
 
     def size: Int
 
-    def reverse: DecisionStages = appendInReverseOnTo(List.empty)
-
-    @tailrec
-    final def appendInReverseOnTo(
-        partialResult: DecisionStages
-    ): DecisionStages = this match {
-      case NoDecisionStages          => partialResult
-      case _: InternedDecisionStages =>
-        Option(
-          nonEmptyToAndFromInternedDecisionStages.inverse().get(this)
-        ) match {
-          case Some(
-                NonEmptyDecisionStages(latestDecision, previousDecisions)
-              ) =>
-            previousDecisions.appendInReverseOnTo(
-              latestDecision :: partialResult
-            )
-        }
+    def reverse: DecisionStages
+
+    // Distinguishes decision stages interned in the same table; serial numbers
+    // are assigned densely from zero, which denotes no decision stages at all.
+    def serialNumber: Int
+
+    // Hashes the decision stages to 64 bits, starting from `seed`.
+    def fingerprint(seed: Long): Long
+
+    // NOTE: this is only ever called while building up a case, and the
+    // interning only starts afresh between cases, so these decision stages
+    // belong to the interning's current table.
+    def addLatest(
+        decision: Decision,
+        decisionStagesInterning: DecisionStagesInterning
+    ): DecisionStagesInReverseOrder = {
+      // NOTE: the serial number of no decision stages maps to
+      // `DecisionStagesInterning.noDecisionStagesIndex`.
+      val index = decisionStagesInterning.intern(serialNumber - 1, decision)
+
+      InternedDecisionStages(decisionStagesInterning.table, index, 1 + size)
     }
 
-    def addLatest(decision: Decision): DecisionStagesInReverseOrder =
-      interned(
-        NonEmptyDecisionStages(decision, this)
-      )
-  }
+    def addLatestLongFactoryInput(
+        input: Long,
+        decisionStagesInterning: DecisionStagesInterning
+    ): DecisionStagesInReverseOrder = {
+      val index =
+        decisionStagesInterning.internLongFactoryInput(serialNumber - 1, input)
 
-  final case class NonEmptyDecisionStages(
-      latestDecision: Decision,
-      previousDecisions: DecisionStagesInReverseOrder
-  ) { def size: Int = 1 + previousDecisions.size }
+      InternedDecisionStages(decisionStagesInterning.table, index, 1 + size)
+    }
+  }
 
+  // NOTE: sequences interned in the same `DecisionStagesTable` are equal if
+  // and only if they have the same index, so equality and hashing are cheap.
   final case class InternedDecisionStages(
+      decisionStagesTable: DecisionStagesTable,
       index: Int,
       override val size: Int
   ) extends DecisionStagesInReverseOrder {
     require(0 < size)
 
     override def nonEmpty: Boolean = true
+
+    override def serialNumber: Int = 1 + index
+
+    override def reverse: DecisionStages =
+      decisionStagesTable.appendInReverseOnTo(index, List.empty)
+
+    override def fingerprint(seed: Long): Long =
+      decisionStagesTable.fingerprint(index, seed)
   }
 
   case class CaseData(
@@ -1031,7 +1442,11 @@ trait SupplyToSyntaxSkeletalImplementation[Case]
   )
 
   case object NoDecisionStages extends DecisionStagesInReverseOrder {
-    override def nonEmpty: Boolean = false
-    override def size: Int         = 0
+    override def nonEmpty: Boolean       = false
+    override def size: Int               = 0
+    override def reverse: DecisionStages = List.empty
+    override def serialNumber: Int       = 0
+    override def fingerprint(seed: Long): Long =
+      DecisionStagesInterning.fingerprintOfNoDecisionStages(seed)
   }
 }
@@ -36,8 +36,9 @@ class RecipeCouldNotBeReproducedException(
      |
      |Expected generation structure:
      |${trialsReproductionStorage
-          .recipeDataFromRecipeHash(recipeHash)
-          .structureOutline}
+          .recipeDataFromDecisionStages(decisionStages)
+          .structureOutline
+          .getOrElse("Only recorded as a fingerprint.")}
      |
      |Current test's generation structure:
      |${generation.structureOutline}
@@ -1,9 +1,18 @@
 package com.sageserpent.americium.java
 
+import com.sageserpent.americium.generation.Decision.{
+  DecisionStagesSyntax,
+  parseRecipe
+}
+
 trait TestIntegrationContext[+Case] {
   def caze: Case
   def caseFailureReporting: CaseFailureReporting
   def inlinedCaseFiltration: InlinedCaseFiltration
   def isPartOfShrinkage: Boolean
   def recipe: String
+  // NOTE: implementations supplied by the library override this so as to
+  // avoid rendering the recipe; this default keeps other implementations
+  // working.
+  def recipeHash: String = parseRecipe(recipe).recipeHash
 }
@@ -6,7 +6,8 @@ import com.sageserpent.americium.{
   CommonApi,
   Trials,
   TrialsImplementation,
-  CaseFactory as ScalaCaseFactory
+  CaseFactory as ScalaCaseFactory,
+  LongCaseFactory as ScalaLongCaseFactory
 }
 
 import _root_.java.lang.{
@@ -162,19 +163,36 @@ trait TrialsApiImplementation extends CommonApi with TrialsApiWart {
   override def streamLegacy[Case](
       factory: JavaFunction[JavaLong, Case]
   ): TrialsImplementation[Case] = stream(
-    new CaseFactory[Case] {
-      override def apply(input: BigInteger): Case =
-        factory(input.longValue())
-      override val lowerBoundInput: BigInteger =
-        BigInteger.valueOf(Long.MinValue)
-      override val upperBoundInput: BigInteger =
-        BigInteger.valueOf(Long.MaxValue)
-      override val maximallyShrunkInput: BigInteger = BigInteger.ZERO
+    new LongCaseFactory[Case] {
+      override def apply(input: Long): Case = factory(input)
+      override def lowerBoundLongInput(): Long      = Long.MinValue
+      override def upperBoundLongInput(): Long      = Long.MaxValue
+      override def maximallyShrunkLongInput(): Long = 0L
     }
   )
 
   def stream[Case](
       caseFactory: CaseFactory[Case]
+  ): TrialsImplementation[Case] = caseFactory match {
+    case longCaseFactory: LongCaseFactory[Case] => stream(longCaseFactory)
+    case _                                      => streamViaBigIntegers(caseFactory)
+  }
+
+  def stream[Case](
+      caseFactory: LongCaseFactory[Case]
+  ): TrialsImplementation[Case] =
+    scalaApi.stream(new ScalaLongCaseFactory[Case] {
+      override def apply(input: Long): Case = caseFactory(input)
+      override def lowerBoundLongInput: Long =
+        caseFactory.lowerBoundLongInput()
+      override def upperBoundLongInput: Long =
+        caseFactory.upperBoundLongInput()
+      override def maximallyShrunkLongInput: Long =
+        caseFactory.maximallyShrunkLongInput()
+    })
+
+  private def streamViaBigIntegers[Case](
+      caseFactory: CaseFactory[Case]
   ): TrialsImplementation[Case] = new TrialsImplementation(
     Factory(new ScalaCaseFactory[Case] {
       require(lowerBoundInput <= maximallyShrunkInput)
@@ -273,6 +291,9 @@ trait TrialsApiImplementation extends CommonApi with TrialsApiWart {
   ): TrialsImplementation[JavaDouble] =
     scalaApi.doubles(lowerBound, upperBound, shrinkageTarget).map(Double.box)
 
+  override def doublesWithSpecialValues(): TrialsImplementation[JavaDouble] =
+    scalaApi.doublesWithSpecialValues.map(Double.box)
+
   override def bigDecimals(
       lowerBound: JavaBigDecimal,
       upperBound: JavaBigDecimal
@@ -1,5 +1,8 @@
 package com.sageserpent.americium.java
 
+import _root_.java.lang.Iterable as JavaIterable
+import scala.jdk.CollectionConverters.IterableHasAsScala
+
 trait TrialsFactoring[+Case] {
   // Scala and Java API ...
 
@@ -17,6 +20,30 @@ trait TrialsFactoring[+Case] {
     */
   def reproduce(recipe: String): Case
 
+  /** Reproduce a series of specific cases, based on their recipes. This is
+    * intended for replaying a corpus of recipes in bulk, and is more
+    * efficient than reproducing each recipe separately.
+    *
+    * @param recipes
+    *   Each recipe is subject to the same constraints as the one given to
+    *   [[reproduce]].
+    * @return
+    *   An iterator over the specific {@code Case} instances denoted by the
+    *   recipes, in the same order. The recipes are reproduced lazily as the
+    *   iterator is advanced.
+    * @throws RuntimeException
+    *   when a recipe is reached that does not correspond to the receiver.
+    */
+  def reproduceAll(recipes: Iterable[String]): Iterator[Case] =
+    recipes.iterator.map(reproduce)
+
+  /** Java API for [[reproduceAll]].
+    */
+  def reproduceAll(
+      recipes: JavaIterable[String]
+  ): CrossApiIterator[_ <: Case] =
+    CrossApiIterator.from(reproduceAll(recipes.asScala))
+
   abstract class TrialException(cause: Throwable)
       extends RuntimeException(cause) {
     override def toString: String =
@@ -15,6 +15,7 @@ import cyclops.function.{Consumer3, Consumer4}
 
 import _root_.java.util.Iterator as JavaIterator
 import java.util.function.{BiConsumer, Consumer, Function as JavaFunction}
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
 
 object tupleTrials {
   implicit val functorInstance: Functor[JavaTrials] = new Functor[JavaTrials] {
@@ -105,6 +106,34 @@ object tupleTrials {
           self.supplyToSyntax.withValidTrialsCheck(enabled)
       }
 
+      override def withParallelism(
+          parallelism: Int
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[JavaTuple2[Case1, Case2]] =
+          self.supplyToSyntax.withParallelism(parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[JavaTuple2[Case1, Case2]] =
+          self.supplyToSyntax.withRandomGeneratorFactory(randomGeneratorFactory)
+      }
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[JavaTuple2[Case1, Case2]] =
+          self.supplyToSyntax.withDuplicateDetection(
+            duplicateDetection,
+            budgetInBytes
+          )
+      }
+
       override def supplyTo(
           consumer: Consumer[JavaTuple2[Case1, Case2]]
       ): Unit = supplyToSyntax.supplyTo(consumer)
@@ -230,6 +259,36 @@ object tupleTrials {
         ] = self.supplyToSyntax.withValidTrialsCheck(enabled)
       }
 
+      override def withParallelism(
+          parallelism: Int
+      ): SupplyToSyntaxTuple3 = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple3[Case1, Case2, Case3]
+        ] = self.supplyToSyntax.withParallelism(parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): SupplyToSyntaxTuple3 = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple3[Case1, Case2, Case3]
+        ] = self.supplyToSyntax.withRandomGeneratorFactory(
+          randomGeneratorFactory
+        )
+      }
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): SupplyToSyntaxTuple3 = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple3[Case1, Case2, Case3]
+        ] = self.supplyToSyntax.withDuplicateDetection(
+          duplicateDetection,
+          budgetInBytes
+        )
+      }
+
       override def supplyTo(
           consumer: Consumer[JavaTuple3[Case1, Case2, Case3]]
       ): Unit = supplyToSyntax.supplyTo(consumer)
@@ -369,6 +428,36 @@ object tupleTrials {
         ] = self.supplyToSyntax.withValidTrialsCheck(enabled)
       }
 
+      override def withParallelism(
+          parallelism: Int
+      ): SupplyToSyntaxTuple4 = new SupplyToSyntaxTuple4 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple4[Case1, Case2, Case3, Case4]
+        ] = self.supplyToSyntax.withParallelism(parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): SupplyToSyntaxTuple4 = new SupplyToSyntaxTuple4 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple4[Case1, Case2, Case3, Case4]
+        ] = self.supplyToSyntax.withRandomGeneratorFactory(
+          randomGeneratorFactory
+        )
+      }
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): SupplyToSyntaxTuple4 = new SupplyToSyntaxTuple4 {
+        override protected val supplyToSyntax: TrialsScaffolding.SupplyToSyntax[
+          JavaTuple4[Case1, Case2, Case3, Case4]
+        ] = self.supplyToSyntax.withDuplicateDetection(
+          duplicateDetection,
+          budgetInBytes
+        )
+      }
+
       override def supplyTo(
           consumer: Consumer[JavaTuple4[Case1, Case2, Case3, Case4]]
       ): Unit = supplyToSyntax.supplyTo(consumer)
@@ -0,0 +1,646 @@
+package com.sageserpent.americium.storage
+
+import com.google.common.hash.Hashing as GuavaHashing
+import com.typesafe.scalalogging.StrictLogging
+
+import _root_.java.io.EOFException
+import _root_.java.nio.ByteBuffer
+import _root_.java.nio.channels.FileChannel
+import _root_.java.nio.charset.StandardCharsets
+import _root_.java.nio.file.StandardOpenOption.{CREATE, READ, WRITE}
+import _root_.java.util.concurrent.ConcurrentHashMap
+import _root_.java.util.concurrent.locks.ReentrantLock
+import scala.collection.mutable
+import scala.util.{Random, Using}
+
+object AppendOnlyLogStorage {
+  private val magicNumber = 0x616d6c67
+
+  // The index header holds the magic number, the number of buckets, the number
+  // of entries, the live and dead bytes in the log, the identity of the log
+  // that the index was built for, the size of the log it covers and a lower
+  // bound on when the live records were put.
+  private val indexHeaderSize = 64
+
+  // Each bucket holds the hash of a key and the offset of the latest record
+  // for that key in the log; an offset of zero denotes an empty bucket, as no
+  // record can start there.
+  private val bucketSize = 16
+
+  private val initialNumberOfBuckets = 1024L
+
+  // The log starts with its identity, followed by the records; each record
+  // holds the lengths of its key and value and when it was put, followed by
+  // the UTF-8 bytes of the key and value.
+  private val logHeaderSize    = 8
+  private val recordHeaderSize = 16
+
+  private val minimumLogSizeForCompaction = 1L << 20
+
+  // NOTE: no log is given this identity, so an index whose header holds it is
+  // stale; this marks an index as being part way through a rebuild.
+  private val invalidLogIdentity = 0L
+
+  // NOTE: file locks are held by the entire JVM, and trying to take an
+  // overlapping one from another thread fails rather than blocks - even if both
+  // locks are shared - so threads have to take turns amongst themselves first.
+  private val locksByDirectory =
+    new ConcurrentHashMap[os.Path, ReentrantLock]()
+
+  private case class IndexHeader(
+      numberOfBuckets: Long,
+      numberOfEntries: Long,
+      liveBytes: Long,
+      deadBytes: Long,
+      logIdentity: Long,
+      logSize: Long,
+      earliestPutTime: Long
+  )
+
+  private case class Record(
+      key: String,
+      value: String,
+      putTime: Long,
+      size: Int
+  )
+}
+
+/** Key-value storage held in a single append-only log file, with an on-disk
+  * hash index from each key to the offset of its latest record in the log.
+  *
+  * Writing appends a record and updates one bucket of the index, and reading
+  * probes the index and reads one record, so neither scans a directory or
+  * creates a file per key. The log is compacted once its superseded records
+  * outweigh the live ones, or when {@code evictionPolicy} calls for
+  * eviction; in the latter case, a record counts as being used when it was
+  * put, as reading is done under a shared lock and so cannot update the log.
+  *
+  * Access is safe for concurrent threads and JVMs: threads in the same JVM
+  * take turns via a lock, and JVMs coordinate via a shared or exclusive lock on
+  * a dedicated lock file, both taken for each operation.
+  *
+  * @note
+  *   The index identifies the log it was built for; should a process die part
+  *   way through compaction, leaving the index out of step with the log, the
+  *   index is rebuilt from the log when next accessed.
+  * @note
+  *   Writing a record is committed by updating the size of the log in the
+  *   index header, after both the record and its bucket have been written;
+  *   until then, the bucket refers beyond the committed log and is taken to
+  *   be empty. Should a process die before committing, the record is dropped
+  *   and the index rebuilt when next accessed.
+  */
+class AppendOnlyLogStorage(
+    directory: os.Path,
+    evictionPolicy: EvictionPolicy = EvictionPolicy.unbounded
+) extends KeyValueStorage
+    with StrictLogging {
+  import AppendOnlyLogStorage.*
+
+  private val lockPath  = directory / "storage.lock"
+  private val logPath   = directory / "storage.log"
+  private val indexPath = directory / "storage.index"
+
+  override def put(key: String, value: String): Unit = putAll(Map(key -> value))
+
+  // NOTE: all the entries are appended under the same locks, so a batch costs
+  // no more in locking and opening files than a single entry.
+  override def putAll(entries: Iterable[(String, String)]): Unit =
+    writeLocked { (index, log) =>
+      val now = System.currentTimeMillis()
+
+      entries.foreach { case (key, value) =>
+        append(index, log, key, value, now)
+      }
+
+      val header = readIndexHeader(index)
+
+      val compactionIsWorthwhile =
+        header.liveBytes < header.deadBytes &&
+          minimumLogSizeForCompaction <= log.size()
+
+      val evictionIsCalledFor = evictionPolicy.isExceeded(
+        header.numberOfEntries,
+        header.liveBytes,
+        header.earliestPutTime,
+        now
+      )
+
+      if (compactionIsWorthwhile || evictionIsCalledFor) compactLog(index, log)
+    }
+
+  private def append(
+      index: FileChannel,
+      log: FileChannel,
+      key: String,
+      value: String,
+      putTime: Long
+  ): Unit = {
+    val header = readIndexHeader(index)
+
+    val hash = hashOf(key)
+
+    val (bucket, supersededOffset) = probe(index, log, header, key, hash)
+
+    val record = encodedRecord(key, value, putTime)
+
+    val offset = header.logSize
+
+    writeFully(log, record, offset)
+
+    // NOTE: the bucket refers to a record beyond the end of the committed log
+    // until the header is updated, so it is taken to be empty until then -
+    // see `isCommitted`.
+    writeBucket(index, bucket, hash, offset)
+
+    val updatedHeader =
+      if (0L == supersededOffset)
+        header.copy(
+          numberOfEntries = 1 + header.numberOfEntries,
+          liveBytes = header.liveBytes + record.capacity,
+          logSize = offset + record.capacity
+        )
+      else {
+        val supersededSize = readRecord(log, supersededOffset).size
+        header.copy(
+          liveBytes = header.liveBytes - supersededSize + record.capacity,
+          deadBytes = header.deadBytes + supersededSize,
+          logSize = offset + record.capacity
+        )
+      }
+
+    // NOTE: the record is only committed by updating the header; should this
+    // process die beforehand, the next writer truncates the record and
+    // rebuilds the index, thus recovering any superseded bucket.
+    writeIndexHeader(index, updatedHeader)
+
+    if (updatedHeader.numberOfBuckets < 2 * updatedHeader.numberOfEntries)
+      reindex(index, updatedHeader, 2 * updatedHeader.numberOfBuckets)
+  }
+
+  override def get(key: String): Option[String] =
+    readLocked { (index, log) =>
+      val header = readIndexHeader(index)
+
+      val (_, offset) = probe(index, log, header, key, hashOf(key))
+
+      Option.when(0L != offset)(readRecord(log, offset).value)
+    }.flatten
+
+  def compact(): Unit = writeLocked(compactLog)
+
+  override def statistics(): StorageStatistics = readLocked { (index, log) =>
+    StorageStatistics(
+      numberOfEntries = readIndexHeader(index).numberOfEntries,
+      numberOfBytes = index.size() + log.size()
+    )
+  }.getOrElse(StorageStatistics(numberOfEntries = 0L, numberOfBytes = 0L))
+
+  override def reset(): Unit = {
+    val lock = lockFor(directory)
+
+    lock.lock()
+    try os.remove.all(directory)
+    finally lock.unlock()
+  }
+
+  private def lockFor(directory: os.Path): ReentrantLock =
+    locksByDirectory.computeIfAbsent(directory, _ => new ReentrantLock)
+
+  private def writeLocked[X](
+      operation: (FileChannel, FileChannel) => X
+  ): X = {
+    val lock = lockFor(directory)
+
+    lock.lock()
+    try {
+      os.makeDir.all(directory)
+
+      Using.resource(FileChannel.open(lockPath.toNIO, CREATE, READ, WRITE)) {
+        lockChannel =>
+          Using.resource(lockChannel.lock()) { _ =>
+            Using.resources(
+              FileChannel.open(indexPath.toNIO, CREATE, READ, WRITE),
+              FileChannel.open(logPath.toNIO, CREATE, READ, WRITE)
+            ) { (index, log) =>
+              if (logHeaderSize > log.size()) {
+                // Either the log is new, or a writer died before it got going.
+                log.truncate(0L)
+                writeLogIdentity(log)
+              }
+
+              val indexIsStale = indexHeaderSize > index.size() ||
+                readIndexHeader(index).logIdentity != readLogIdentity(log)
+
+              if (indexIsStale) rebuildIndexFromLog(index, log)
+              else {
+                val committedLogSize = readIndexHeader(index).logSize
+                // A writer died part way through appending a record; drop it
+                // and rebuild the index, as its bucket may have been updated.
+                if (committedLogSize < log.size()) {
+                  log.truncate(committedLogSize)
+                  rebuildIndexFromLog(index, log)
+                }
+              }
+
+              operation(index, log)
+            }
+          }
+      }
+    } finally lock.unlock()
+  }
+
+  // Yields `None` if there is nothing stored yet.
+  private def readLocked[X](
+      operation: (FileChannel, FileChannel) => X
+  ): Option[X] = {
+    val lock = lockFor(directory)
+
+    lock.lock()
+    val result =
+      try {
+        if (!os.exists(lockPath)) Some(None)
+        else
+          Using.resource(FileChannel.open(lockPath.toNIO, READ, WRITE)) {
+            lockChannel =>
+              Using.resource(lockChannel.lock(0L, Long.MaxValue, true)) { _ =>
+                if (!os.exists(logPath)) Some(None)
+                else if (!os.exists(indexPath)) None
+                else
+                  Using.resources(
+                    FileChannel.open(indexPath.toNIO, READ),
+                    FileChannel.open(logPath.toNIO, READ)
+                  ) { (index, log) =>
+                    val indexIsCurrent = indexHeaderSize <= index.size() &&
+                      logHeaderSize <= log.size() && {
+                        val header = readIndexHeader(index)
+
+                        header.logIdentity == readLogIdentity(log) &&
+                        header.logSize == log.size()
+                      }
+
+                    Option.when(indexIsCurrent)(Some(operation(index, log)))
+                  }
+              }
+          }
+      } finally lock.unlock()
+
+    // NOTE: the index has to be brought back into step with the log before
+    // reading, which needs exclusive access.
+    result.getOrElse(Some(writeLocked(operation)))
+  }
+
+  private def hashOf(key: String): Long =
+    GuavaHashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong()
+
+  // Yields the bucket holding `key` and the offset of its record, or the empty
+  // bucket where it would go and an offset of zero.
+  private def probe(
+      index: FileChannel,
+      log: FileChannel,
+      header: IndexHeader,
+      key: String,
+      hash: Long
+  ): (Long, Long) = {
+    val mask = header.numberOfBuckets - 1
+
+    var bucket = hash & mask
+    var result = Option.empty[(Long, Long)]
+
+    while (result.isEmpty) {
+      val (storedHash, offset) = readBucket(index, bucket)
+
+      if (!isCommitted(offset, header)) result = Some(bucket -> 0L)
+      else if (storedHash == hash && readRecord(log, offset).key == key)
+        result = Some(bucket -> offset)
+      else bucket = (1 + bucket) & mask
+    }
+
+    result.get
+  }
+
+  private def compactLog(index: FileChannel, log: FileChannel): Unit = {
+    val header = readIndexHeader(index)
+
+    val compactedLogPath = directory / "storage.log.compacting"
+
+    Using.resource(
+      FileChannel.open(compactedLogPath.toNIO, CREATE, READ, WRITE)
+    ) { compactedLog =>
+      compactedLog.truncate(0L)
+
+      writeLogIdentity(compactedLog)
+
+      // NOTE: records are put in log order, so this is also the order from
+      // least to most recently used.
+      val liveOffsets = (0L until header.numberOfBuckets)
+        .map(readBucket(index, _)._2)
+        .filter(isCommitted(_, header))
+        .sorted
+
+      // NOTE: only the record headers are read to decide on eviction, so as
+      // not to hold all the live records in memory at once.
+      val liveOffsetsWithPutTimesAndSizes =
+        liveOffsets.map(offset => offset -> readPutTimeAndSize(log, offset))
+
+      val survivingOffsets = evictionPolicy
+        .survivors(liveOffsetsWithPutTimesAndSizes)(
+          accessTime = { case (_, (putTime, _)) => putTime },
+          numberOfBytes = { case (_, (_, size)) => size.toLong },
+          now = System.currentTimeMillis()
+        )
+        .map(_._1)
+
+      survivingOffsets.foreach { offset =>
+        val Record(key, value, putTime, _) = readRecord(log, offset)
+        writeFully(
+          compactedLog,
+          encodedRecord(key, value, putTime),
+          compactedLog.size()
+        )
+      }
+
+      compactedLog.force(true)
+
+      logger.debug(
+        s"Compacting $logPath from ${log.size()} bytes, of which ${header.deadBytes} are dead, evicting ${liveOffsets.size - survivingOffsets.size} entries."
+      )
+    }
+
+    // NOTE: the channel for the old log is still open, so the index is rebuilt
+    // from a fresh channel for the compacted log; the old log is released once
+    // its channel is closed. Should this process die between the move and the
+    // rebuild, the index's stale log identity causes a rebuild on next access.
+    os.move(
+      compactedLogPath,
+      logPath,
+      replaceExisting = true,
+      atomicMove = true
+    )
+
+    Using.resource(FileChannel.open(logPath.toNIO, READ, WRITE)) {
+      compactedLog => rebuildIndexFromLog(index, compactedLog)
+    }
+  }
+
+  private def rebuildIndexFromLog(
+      index: FileChannel,
+      log: FileChannel
+  ): Unit = {
+    val offsetsAndRecordsByKey =
+      mutable.LinkedHashMap.empty[String, (Long, Record)]
+
+    var offset    = logHeaderSize.toLong
+    var deadBytes = 0L
+
+    try {
+      while (offset < log.size()) {
+        val record = readRecord(log, offset)
+        offsetsAndRecordsByKey.put(record.key, offset -> record).foreach {
+          case (_, superseded) => deadBytes += superseded.size
+        }
+        offset += record.size
+      }
+    } catch {
+      case _: EOFException =>
+        // A writer died part way through appending a record, so drop it.
+        log.truncate(offset)
+    }
+
+    var numberOfBuckets = initialNumberOfBuckets
+    while (numberOfBuckets < 2 * offsetsAndRecordsByKey.size)
+      numberOfBuckets *= 2
+
+    val liveRecords = offsetsAndRecordsByKey.values.map(_._2)
+
+    val header = IndexHeader(
+      numberOfBuckets = numberOfBuckets,
+      numberOfEntries = offsetsAndRecordsByKey.size,
+      liveBytes = liveRecords.iterator.map(_.size.toLong).sum,
+      deadBytes = deadBytes,
+      logIdentity = readLogIdentity(log),
+      logSize = offset,
+      earliestPutTime = liveRecords.iterator
+        .map(_.putTime)
+        .minOption
+        .getOrElse(System.currentTimeMillis())
+    )
+
+    initialiseIndex(index, header)
+
+    offsetsAndRecordsByKey.foreach { case (key, (recordOffset, _)) =>
+      insertWithoutComparingKeys(index, header, hashOf(key), recordOffset)
+    }
+
+    writeIndexHeader(index, header)
+
+    logger.debug(
+      s"Rebuilt the index for $logPath with ${header.numberOfEntries} entries."
+    )
+  }
+
+  private def reindex(
+      index: FileChannel,
+      header: IndexHeader,
+      numberOfBuckets: Long
+  ): Unit = {
+    val hashesAndOffsets = (0L until header.numberOfBuckets)
+      .map(readBucket(index, _))
+      .filter { case (_, offset) => isCommitted(offset, header) }
+
+    val reindexedHeader = header.copy(numberOfBuckets = numberOfBuckets)
+
+    initialiseIndex(index, reindexedHeader)
+
+    hashesAndOffsets.foreach { case (hash, offset) =>
+      insertWithoutComparingKeys(index, reindexedHeader, hash, offset)
+    }
+
+    writeIndexHeader(index, reindexedHeader)
+  }
+
+  // NOTE: only used when the keys are known to be distinct.
+  private def insertWithoutComparingKeys(
+      index: FileChannel,
+      header: IndexHeader,
+      hash: Long,
+      offset: Long
+  ): Unit = {
+    val mask = header.numberOfBuckets - 1
+
+    var bucket = hash & mask
+    while (0L != readBucket(index, bucket)._2) bucket = (1 + bucket) & mask
+
+    writeBucket(index, bucket, hash, offset)
+  }
+
+  // NOTE: the index is marked as stale until the caller has filled the
+  // buckets and written `header`, so should this process die in the meantime,
+  // the index is rebuilt from the log when next accessed.
+  private def initialiseIndex(index: FileChannel, header: IndexHeader): Unit = {
+    index.truncate(0L)
+    // Writing the last byte zero-fills all of the buckets.
+    writeFully(
+      index,
+      ByteBuffer.allocate(1),
+      indexHeaderSize + header.numberOfBuckets * bucketSize - 1
+    )
+    writeIndexHeader(index, header.copy(logIdentity = invalidLogIdentity))
+  }
+
+  // An offset of zero denotes an empty bucket; an offset at or beyond the end
+  // of the committed log denotes a record whose writer died before committing
+  // it, so that bucket is taken to be empty too.
+  private def isCommitted(offset: Long, header: IndexHeader): Boolean =
+    0L != offset && offset < header.logSize
+
+  private def readIndexHeader(index: FileChannel): IndexHeader = {
+    val buffer = readFully(index, indexHeaderSize, 0L)
+
+    if (magicNumber != buffer.getInt(0))
+      throw new IllegalStateException(s"$indexPath is not a storage index.")
+
+    IndexHeader(
+      numberOfBuckets = buffer.getLong(8),
+      numberOfEntries = buffer.getLong(16),
+      liveBytes = buffer.getLong(24),
+      deadBytes = buffer.getLong(32),
+      logIdentity = buffer.getLong(40),
+      logSize = buffer.getLong(48),
+      earliestPutTime = buffer.getLong(56)
+    )
+  }
+
+  private def writeIndexHeader(index: FileChannel, header: IndexHeader): Unit =
+    writeFully(
+      index,
+      ByteBuffer
+        .allocate(indexHeaderSize)
+        .putInt(0, magicNumber)
+        .putLong(8, header.numberOfBuckets)
+        .putLong(16, header.numberOfEntries)
+        .putLong(24, header.liveBytes)
+        .putLong(32, header.deadBytes)
+        .putLong(40, header.logIdentity)
+        .putLong(48, header.logSize)
+        .putLong(56, header.earliestPutTime),
+      0L
+    )
+
+  private def readBucket(index: FileChannel, bucket: Long): (Long, Long) = {
+    val buffer =
+      readFully(index, bucketSize, indexHeaderSize + bucket * bucketSize)
+
+    buffer.getLong(0) -> buffer.getLong(8)
+  }
+
+  private def writeBucket(
+      index: FileChannel,
+      bucket: Long,
+      hash: Long,
+      offset: Long
+  ): Unit = writeFully(
+    index,
+    ByteBuffer.allocate(bucketSize).putLong(0, hash).putLong(8, offset),
+    indexHeaderSize + bucket * bucketSize
+  )
+
+  // NOTE: each log gets a fresh identity, so that an index built for a log
+  // that has since been replaced by compaction is recognised as stale.
+  private def writeLogIdentity(log: FileChannel): Unit =
+    writeFully(
+      log,
+      ByteBuffer
+        .allocate(logHeaderSize)
+        .putLong(
+          0,
+          Iterator
+            .continually(Random.nextLong())
+            .find(invalidLogIdentity != _)
+            .get
+        ),
+      0L
+    )
+
+  private def readLogIdentity(log: FileChannel): Long =
+    readFully(log, logHeaderSize, 0L).getLong(0)
+
+  private def readPutTimeAndSize(
+      log: FileChannel,
+      offset: Long
+  ): (Long, Int) = {
+    val recordHeader = readFully(log, recordHeaderSize, offset)
+
+    val keyLength   = recordHeader.getInt(0)
+    val valueLength = recordHeader.getInt(4)
+
+    recordHeader.getLong(8) -> (recordHeaderSize + keyLength + valueLength)
+  }
+
+  private def readRecord(log: FileChannel, offset: Long): Record = {
+    val recordHeader = readFully(log, recordHeaderSize, offset)
+
+    val keyLength   = recordHeader.getInt(0)
+    val valueLength = recordHeader.getInt(4)
+    val putTime     = recordHeader.getLong(8)
+
+    val payload =
+      readFully(log, keyLength + valueLength, offset + recordHeaderSize)
+
+    Record(
+      key = new String(payload.array(), 0, keyLength, StandardCharsets.UTF_8),
+      value = new String(
+        payload.array(),
+        keyLength,
+        valueLength,
+        StandardCharsets.UTF_8
+      ),
+      putTime = putTime,
+      size = recordHeaderSize + keyLength + valueLength
+    )
+  }
+
+  private def encodedRecord(
+      key: String,
+      value: String,
+      putTime: Long
+  ): ByteBuffer = {
+    val keyBytes   = key.getBytes(StandardCharsets.UTF_8)
+    val valueBytes = value.getBytes(StandardCharsets.UTF_8)
+
+    ByteBuffer
+      .allocate(recordHeaderSize + keyBytes.length + valueBytes.length)
+      .putInt(keyBytes.length)
+      .putInt(valueBytes.length)
+      .putLong(putTime)
+      .put(keyBytes)
+      .put(valueBytes)
+      .flip()
+  }
+
+  private def readFully(
+      channel: FileChannel,
+      size: Int,
+      position: Long
+  ): ByteBuffer = {
+    val buffer = ByteBuffer.allocate(size)
+
+    while (buffer.hasRemaining) {
+      if (0 > channel.read(buffer, position + buffer.position()))
+        throw new EOFException(s"Unexpected end of storage file at $position.")
+    }
+
+    buffer
+  }
+
+  private def writeFully(
+      channel: FileChannel,
+      buffer: ByteBuffer,
+      position: Long
+  ): Unit = {
+    buffer.rewind()
+
+    while (buffer.hasRemaining)
+      channel.write(buffer, position + buffer.position())
+  }
+}
@@ -0,0 +1,100 @@
+package com.sageserpent.americium.storage
+
+import com.sageserpent.americium.generation.JavaPropertyNames.{
+  maximumBytesJavaProperty,
+  maximumEntriesJavaProperty,
+  timeToLiveDaysJavaProperty
+}
+
+import scala.concurrent.duration.*
+
+object EvictionPolicy {
+  val unbounded: EvictionPolicy =
+    EvictionPolicy(Long.MaxValue, Long.MaxValue, Long.MaxValue.nanoseconds)
+
+  // NOTE: each bound only applies if its Java property is set, so by default
+  // nothing is ever evicted. This is deliberate: storage can't track when an
+  // entry was last read, so an entry counts as used when it was last put, and
+  // a default bound would evict the recipes of long-standing failures that are
+  // still being reproduced.
+  def configured(): EvictionPolicy = EvictionPolicy(
+    maximumNumberOfEntries = Option(
+      System.getProperty(maximumEntriesJavaProperty)
+    ).fold(ifEmpty = unbounded.maximumNumberOfEntries)(_.toLong),
+    maximumNumberOfBytes = Option(
+      System.getProperty(maximumBytesJavaProperty)
+    ).fold(ifEmpty = unbounded.maximumNumberOfBytes)(_.toLong),
+    timeToLive = Option(
+      System.getProperty(timeToLiveDaysJavaProperty)
+    ).fold(ifEmpty = unbounded.timeToLive)(_.toLong.days)
+  )
+}
+
+/** Bounds the entries kept by a [[KeyValueStorage]]; once any bound is
+  * exceeded, the least recently used entries are evicted, an entry counting as
+  * used when it was last put.
+  *
+  * @note
+  *   Eviction takes entries down to a tenth below the bounds, and also evicts
+  *   entries that are within a tenth of the time to live of expiring, so that
+  *   the cost of eviction is amortised over many writes.
+  */
+case class EvictionPolicy(
+    maximumNumberOfEntries: Long,
+    maximumNumberOfBytes: Long,
+    timeToLive: FiniteDuration
+) {
+  require(0L < maximumNumberOfEntries)
+  require(0L < maximumNumberOfBytes)
+  require(Duration.Zero < timeToLive)
+
+  def isExceeded(
+      numberOfEntries: Long,
+      numberOfBytes: Long,
+      earliestAccessTime: Long,
+      now: Long
+  ): Boolean =
+    isOverBounds(numberOfEntries, numberOfBytes) ||
+      timeToLive.toMillis < now - earliestAccessTime
+
+  private def isOverBounds(numberOfEntries: Long, numberOfBytes: Long) =
+    maximumNumberOfEntries < numberOfEntries ||
+      maximumNumberOfBytes < numberOfBytes
+
+  /** @return
+    *   The entries that survive eviction.
+    * @param entries
+    *   Ordered from least to most recently used.
+    */
+  def survivors[Entry](entries: IndexedSeq[Entry])(
+      accessTime: Entry => Long,
+      numberOfBytes: Entry => Long,
+      now: Long
+  ): IndexedSeq[Entry] = {
+    val evictionHorizon =
+      now - (timeToLive.toMillis - timeToLive.toMillis / 10)
+
+    val unexpired = entries.filter(evictionHorizon <= accessTime(_))
+
+    var numberOfEntries    = unexpired.size.toLong
+    var totalNumberOfBytes = unexpired.iterator.map(numberOfBytes).sum
+    var numberOfEvictions  = 0
+
+    if (isOverBounds(numberOfEntries, totalNumberOfBytes)) {
+      val targetNumberOfEntries =
+        maximumNumberOfEntries - maximumNumberOfEntries / 10
+      val targetNumberOfBytes = maximumNumberOfBytes - maximumNumberOfBytes / 10
+
+      while (
+        targetNumberOfEntries < numberOfEntries ||
+        targetNumberOfBytes < totalNumberOfBytes
+      ) {
+        totalNumberOfBytes -= numberOfBytes(unexpired(numberOfEvictions))
+        numberOfEntries -= 1
+        numberOfEvictions += 1
+      }
+    }
+
+    unexpired.drop(numberOfEvictions)
+  }
+}
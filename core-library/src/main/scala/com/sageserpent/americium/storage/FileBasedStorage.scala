@@ -1,5 +1,82 @@
 package com.sageserpent.americium.storage
 
+import com.sageserpent.americium.generation.JavaPropertyNames.sweepLegacyFilesJavaProperty
+import com.typesafe.scalalogging.StrictLogging
+
+object FileBasedStorage extends StrictLogging {
+
+  /** Whether files recorded by earlier versions are to be swept for eviction;
+    * this is opt-in via the Java property {@code
+    * trials.runDatabaseSweepLegacyFiles}, as those files may still be wanted
+    * by earlier versions sharing the same database.
+    */
+  def legacyFilesAreToBeSwept(): Boolean =
+    Option(System.getProperty(sweepLegacyFilesJavaProperty)).fold(ifEmpty =
+      false
+    )(_.toBoolean)
+
+  /** Evicts files for entries in {@code directory} according to {@code
+    * evictionPolicy}, taking the last modification time of each file as the
+    * time it was last used.
+    *
+    * @param isEntry
+    *   Picks out the files for entries, as opposed to temporary files or
+    *   subdirectories.
+    */
+  def evictFiles(
+      directory: os.Path,
+      evictionPolicy: EvictionPolicy,
+      isEntry: os.Path => Boolean
+  ): Unit = {
+    val entries = filesAndStatistics(directory, isEntry)
+      .sortBy { case (_, stat) => stat.mtime.toMillis }
+
+    val survivors = evictionPolicy
+      .survivors(entries)(
+        accessTime = _._2.mtime.toMillis,
+        numberOfBytes = _._2.size,
+        now = System.currentTimeMillis()
+      )
+      .map(_._1)
+      .toSet
+
+    val evictees = entries.map(_._1).filterNot(survivors.contains)
+
+    // NOTE: another process may have evicted the same files concurrently, so
+    // missing files are tolerated.
+    evictees.foreach(os.remove(_, checkExists = false))
+
+    if (evictees.nonEmpty)
+      logger.debug(s"Evicted ${evictees.size} files from $directory.")
+  }
+
+  def statisticsOfFiles(
+      directory: os.Path,
+      isEntry: os.Path => Boolean
+  ): StorageStatistics = {
+    val entries = filesAndStatistics(directory, isEntry)
+
+    StorageStatistics(
+      numberOfEntries = entries.size,
+      numberOfBytes = entries.iterator.map(_._2.size).sum
+    )
+  }
+
+  private def filesAndStatistics(
+      directory: os.Path,
+      isEntry: os.Path => Boolean
+  ): IndexedSeq[(os.Path, os.StatInfo)] =
+    if (os.isDir(directory))
+      os.list(directory).filter(isEntry).flatMap { path =>
+        try {
+          Some(path -> os.stat(path))
+        } catch {
+          case _: java.nio.file.NoSuchFileException => None
+        }
+      }
+    else IndexedSeq.empty
+}
+
 /** Common functionality for file-based storage implementations.
   *
   * Provides shared atomic write and TOCTOU-free read patterns for file-based
@@ -0,0 +1,77 @@
+package com.sageserpent.americium.storage
+
+import com.google.common.hash.Hashing as GuavaHashing
+
+import _root_.java.util.concurrent.atomic.AtomicLong
+
+object FilePerKeyStorage {
+  // NOTE: sweeping the directory to evict files costs a listing of it, so this
+  // is only done on the first put and then every so often.
+  private val numberOfPutsPerSweep = 1000L
+
+  private val filenamePrefix = "entry-for-key-hash-"
+  private val filenameSuffix = ".txt"
+
+  private def isEntry(path: os.Path): Boolean =
+    path.last.startsWith(filenamePrefix) && path.last.endsWith(filenameSuffix)
+}
+
+/** Key-value storage with a file per key, named after a hash of the key. The
+  * last modification time of each file is refreshed when it is read, so that
+  * eviction can go by when an entry was last used.
+  */
+class FilePerKeyStorage(
+    override protected val storageDirectory: os.Path,
+    evictionPolicy: EvictionPolicy = EvictionPolicy.unbounded
+) extends FileBasedStorage
+    with KeyValueStorage {
+  import FilePerKeyStorage.*
+
+  type Key = String
+
+  private val numberOfPuts = new AtomicLong()
+
+  override def put(key: Key, value: String): Unit = {
+    atomicWrite(key, value)
+
+    if (0L == numberOfPuts.getAndIncrement() % numberOfPutsPerSweep)
+      FileBasedStorage.evictFiles(storageDirectory, evictionPolicy, isEntry)
+  }
+
+  override def get(key: Key): Option[String] = {
+    val value =
+      try {
+        Some(atomicRead(key))
+      } catch {
+        case _: java.nio.file.NoSuchFileException => None
+      }
+
+    value.foreach { _ =>
+      try {
+        os.mtime.set(
+          storageDirectory / filenameFor(key),
+          System.currentTimeMillis()
+        )
+      } catch {
+        // Evicted in the meantime, but the value has been read anyway.
+        case _: java.nio.file.NoSuchFileException =>
+      }
+    }
+
+    value
+  }
+
+  override def statistics(): StorageStatistics =
+    FileBasedStorage.statisticsOfFiles(storageDirectory, isEntry)
+
+  override protected def filenameFor(key: Key): String = {
+    // Use a hash, because keys can contain characters that can't belong to
+    // filenames and also get far too long for OS limits.
+    val hash = GuavaHashing
+      .murmur3_128()
+      .hashUnencodedChars(key)
+      .toString
+
+    s"$filenamePrefix$hash$filenameSuffix"
+  }
+}
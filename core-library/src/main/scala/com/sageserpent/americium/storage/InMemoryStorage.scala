@@ -0,0 +1,73 @@
+package com.sageserpent.americium.storage
+
+import _root_.java.util.LinkedHashMap as JavaLinkedHashMap
+
+object InMemoryStorage {
+  private final class Entry(val value: String, var accessTime: Long) {
+    // Strings are UTF-16, so this is roughly what is taken up on the heap.
+    def numberOfBytes(key: String): Long = 2L * (key.length + value.length)
+  }
+}
+
+/** Key-value storage held purely in memory, so it lasts only as long as the
+  * JVM.
+  */
+class InMemoryStorage(evictionPolicy: EvictionPolicy = EvictionPolicy.unbounded)
+    extends KeyValueStorage {
+  import InMemoryStorage.*
+
+  // NOTE: ordered from least to most recently used, so eviction just takes
+  // entries from the front.
+  private val entriesByKey =
+    new JavaLinkedHashMap[String, Entry](16, 0.75f, true)
+
+  private var numberOfBytes = 0L
+
+  override def put(key: String, value: String): Unit = synchronized {
+    val now = System.currentTimeMillis()
+
+    val entry = new Entry(value, now)
+
+    Option(entriesByKey.put(key, entry)).foreach(superseded =>
+      numberOfBytes -= superseded.numberOfBytes(key)
+    )
+    numberOfBytes += entry.numberOfBytes(key)
+
+    // NOTE: eviction is cheap here, so the bounds are enforced exactly.
+    val leastRecentlyUsed = entriesByKey.entrySet().iterator()
+    var evicting          = true
+
+    while (evicting && leastRecentlyUsed.hasNext) {
+      val candidate = leastRecentlyUsed.next()
+
+      evicting = evictionPolicy.isExceeded(
+        entriesByKey.size,
+        numberOfBytes,
+        candidate.getValue.accessTime,
+        now
+      )
+
+      if (evicting) {
+        numberOfBytes -= candidate.getValue.numberOfBytes(candidate.getKey)
+        leastRecentlyUsed.remove()
+      }
+    }
+  }
+
+  override def get(key: String): Option[String] = synchronized {
+    // NOTE: looking up the entry makes it the most recently used.
+    Option(entriesByKey.get(key)).map { entry =>
+      entry.accessTime = System.currentTimeMillis()
+      entry.value
+    }
+  }
+
+  override def reset(): Unit = synchronized {
+    entriesByKey.clear()
+    numberOfBytes = 0L
+  }
+
+  override def statistics(): StorageStatistics = synchronized {
+    StorageStatistics(entriesByKey.size, numberOfBytes)
+  }
+}
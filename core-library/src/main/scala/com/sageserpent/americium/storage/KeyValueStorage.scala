@@ -0,0 +1,22 @@
+package com.sageserpent.americium.storage
+
+/** Storage of string values by string keys, as provided by a
+  * [[StorageBackend]]. Implementations must be safe for concurrent use, and
+  * should enforce their [[EvictionPolicy]] incrementally as entries are put.
+  */
+trait KeyValueStorage {
+  def put(key: String, value: String): Unit
+
+  /** Stores a batch of entries; implementations can override this to amortise
+    * the cost of storing them.
+    */
+  def putAll(entries: Iterable[(String, String)]): Unit =
+    entries.foreach { case (key, value) => put(key, value) }
+
+  def get(key: String): Option[String]
+
+  /** Removes all the entries. */
+  def reset(): Unit
+
+  def statistics(): StorageStatistics
+}
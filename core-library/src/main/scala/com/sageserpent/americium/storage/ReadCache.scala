@@ -0,0 +1,20 @@
+package com.sageserpent.americium.storage
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.sageserpent.americium.generation.JavaPropertyNames.readCacheCapacityJavaProperty
+
+// Size-bounded caches of values read from storage, so that repeated lookups
+// don't go back to storage and parse the same values again; a capacity of zero
+// effectively disables caching.
+// NOTE: the storages invalidate their caches when they write, but not when
+// another process writes to the same storage.
+object ReadCache {
+  val readCacheCapacityDefault = 10000L
+
+  def configuredCapacity(): Long = Option(
+    System.getProperty(readCacheCapacityJavaProperty)
+  ).fold(ifEmpty = readCacheCapacityDefault)(_.toLong)
+
+  def apply[Value <: AnyRef](capacity: Long): Cache[String, Value] =
+    Caffeine.newBuilder().maximumSize(capacity).build[String, Value]()
+}
@@ -0,0 +1,153 @@
+package com.sageserpent.americium.storage
+
+import com.sageserpent.americium.generation.JavaPropertyNames.storageBackendJavaProperty
+
+import _root_.java.util.ServiceLoader
+import _root_.java.util.concurrent.ConcurrentHashMap
+import scala.jdk.CollectionConverters.*
+
+/** Service provider interface for the storage of recipes and JUnit5 replay
+  * information.
+  *
+  * Besides the built-in backends, implementations can be registered for
+  * discovery via {@code ServiceLoader} under {@code
+  * META-INF/services/com.sageserpent.americium.storage.StorageBackend}, and
+  * are then selected by name using the Java property {@code
+  * trials.storageBackend}. Alternatively, a backend can be selected
+  * programmatically via [[StorageBackend.select]].
+  */
+trait StorageBackend {
+
+  /** The name used to select this backend, also used to name its storage
+    * directories.
+    */
+  def name: String
+
+  /** @return
+    *   Storage for the entries of a given kind; a backend that works with the
+    *   file system should confine itself to {@code directory}, whereas one that
+    *   doesn't should still yield the same entries for the same directory.
+    */
+  def storageFor(
+      directory: os.Path,
+      evictionPolicy: EvictionPolicy
+  ): KeyValueStorage
+
+  /** Whether storage from this backend reads and writes files under the
+    * directories it is given.
+    */
+  def usesTheFileSystem: Boolean = false
+}
+
+object StorageBackend {
+  val filePerKey: StorageBackend = new StorageBackend {
+    override val name: String = "filePerKey"
+
+    override def storageFor(
+        directory: os.Path,
+        evictionPolicy: EvictionPolicy
+    ): KeyValueStorage = new FilePerKeyStorage(directory, evictionPolicy)
+
+    override def usesTheFileSystem: Boolean = true
+  }
+
+  val indexedLog: StorageBackend = new StorageBackend {
+    override val name: String = "indexedLog"
+
+    override def storageFor(
+        directory: os.Path,
+        evictionPolicy: EvictionPolicy
+    ): KeyValueStorage = new AppendOnlyLogStorage(directory, evictionPolicy)
+
+    override def usesTheFileSystem: Boolean = true
+  }
+
+  val inMemory: StorageBackend = new StorageBackend {
+    private val storagesByDirectory =
+      new ConcurrentHashMap[os.Path, KeyValueStorage]()
+
+    override val name: String = "inMemory"
+
+    // NOTE: the eviction policy of the first storage for a directory wins.
+    override def storageFor(
+        directory: os.Path,
+        evictionPolicy: EvictionPolicy
+    ): KeyValueStorage = storagesByDirectory.computeIfAbsent(
+      directory,
+      _ => new InMemoryStorage(evictionPolicy)
+    )
+  }
+
+  val storageBackendDefault: StorageBackend = indexedLog
+
+  // Tracks the programmatic selection, along with the backend used by the
+  // storage shared across the JVM once that has been set up.
+  private[storage] final class Selection {
+    private var programmaticSelection: Option[StorageBackend] = None
+
+    private var selectionForSharedStorage: Option[StorageBackend] = None
+
+    def select(storageBackend: StorageBackend): Unit = synchronized {
+      selectionForSharedStorage
+        .filter(storageBackend ne _)
+        .foreach { storageBackendInUse =>
+          throw new IllegalStateException(
+            s"Can't select storage backend: `${storageBackend.name}`, as storage has already been set up using: `${storageBackendInUse.name}` - select the storage backend before any trials run."
+          )
+        }
+
+      programmaticSelection = Some(storageBackend)
+    }
+
+    def selected(): StorageBackend = synchronized {
+      programmaticSelection.getOrElse(
+        Option(System.getProperty(storageBackendJavaProperty)).fold(ifEmpty =
+          storageBackendDefault
+        )(named)
+      )
+    }
+
+    def selectedForSharedStorage(): StorageBackend = synchronized {
+      val result = selectionForSharedStorage.getOrElse(selected())
+
+      selectionForSharedStorage = Some(result)
+
+      result
+    }
+  }
+
+  private val selection = new Selection
+
+  /** Selects {@code storageBackend} in preference to the one named by the Java
+    * property {@code trials.storageBackend}.
+    * @note
+    *   The storage used by Americium itself is set up on first use, so this
+    *   has to be called beforehand.
+    * @throws IllegalStateException
+    *   if the storage used by Americium itself has already been set up with a
+    *   different backend.
+    */
+  def select(storageBackend: StorageBackend): Unit =
+    selection.select(storageBackend)
+
+  def selected(): StorageBackend = selection.selected()
+
+  /** Like [[selected]], but for the storage shared across the JVM; once this is
+    * called, a different backend can no longer be selected.
+    */
+  private[americium] def selectedForSharedStorage(): StorageBackend =
+    selection.selectedForSharedStorage()
+
+  private def named(name: String): StorageBackend = {
+    val discovered =
+      ServiceLoader.load(classOf[StorageBackend]).asScala.toSeq
+
+    (Seq(filePerKey, indexedLog, inMemory) ++ discovered)
+      .find(name == _.name)
+      .getOrElse(
+        throw new RuntimeException(
+          s"No storage backend named: `$name` for Java property: `$storageBackendJavaProperty`"
+        )
+      )
+  }
+}
@@ -0,0 +1,13 @@
+package com.sageserpent.americium.storage
+
+/** A report of the size of a [[KeyValueStorage]].
+  *
+  * @param numberOfBytes
+  *   The bytes taken up by the storage, including any overhead.
+  */
+case class StorageStatistics(numberOfEntries: Long, numberOfBytes: Long) {
+  def +(that: StorageStatistics): StorageStatistics = StorageStatistics(
+    numberOfEntries + that.numberOfEntries,
+    numberOfBytes + that.numberOfBytes
+  )
+}
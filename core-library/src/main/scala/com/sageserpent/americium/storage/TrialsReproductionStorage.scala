@@ -1,5 +1,6 @@
 package com.sageserpent.americium.storage
 
+import com.sageserpent.americium.generation.Decision.DecisionStages
 import com.sageserpent.americium.generation.JavaPropertyNames.{
   runDatabaseJavaProperty,
   temporaryDirectoryJavaProperty
@@ -11,9 +12,14 @@ import io.circe.generic.auto.*
 import io.circe.parser.parse
 import io.circe.syntax.*
 
+import _root_.java.util.concurrent.atomic.AtomicBoolean
+
 object TrialsReproductionStorage {
   val trialsReproductionStorage: TrialsReproductionStorage =
-    new TrialsReproductionStorage(storagePath)
+    new TrialsReproductionStorage(
+      storagePath,
+      storageBackend = StorageBackend.selectedForSharedStorage()
+    )
 
   private[storage] def storagePath: os.Path = {
     val tempDir = Option(System.getProperty(temporaryDirectoryJavaProperty))
@@ -29,32 +35,105 @@ object TrialsReproductionStorage {
     os.Path(tempDir) / s"$databaseName-trials"
   }
 
+  // Recipe data recorded by earlier versions holds the full structure outline
+  // rather than a structure fingerprint, hence the options.
   case class RecipeData(
       recipe: String,
-      structureOutline: String
+      structureFingerprint: Option[String],
+      structureOutline: Option[String] = None
   )
 }
 
-class TrialsReproductionStorage(baseDir: os.Path) extends FileBasedStorage {
+class TrialsReproductionStorage(
+    baseDir: os.Path,
+    storageBackend: StorageBackend = StorageBackend.selected(),
+    evictionPolicy: EvictionPolicy = EvictionPolicy.configured(),
+    readCacheCapacity: Long = ReadCache.configuredCapacity(),
+    sweepLegacyFiles: Boolean = FileBasedStorage.legacyFilesAreToBeSwept()
+) extends FileBasedStorage {
   type Key = String
 
   override protected val storageDirectory: os.Path = baseDir / "recipes"
 
+  // NOTE: recipe data is recorded via the storage backend; the file per recipe
+  // hash inherited from `FileBasedStorage` is only read from, as a fallback for
+  // recipe data recorded by earlier versions.
+  private val recipeStorage = storageBackend.storageFor(
+    storageDirectory / storageBackend.name,
+    evictionPolicy
+  )
+
+  // NOTE: this instance is shared by all the suppliers in the JVM, so they
+  // share the cache too.
+  private val recipeDataCache = ReadCache[RecipeData](readCacheCapacity)
+
+  // If `sweepLegacyFiles` is set, files recorded by earlier versions are swept
+  // for eviction once, on the first write.
+  private val legacyFilesAreSwept = new AtomicBoolean(false)
+
+  private def isLegacyFile(path: os.Path): Boolean =
+    path.last.startsWith("recipe-data-for-recipe-hash-") &&
+      path.last.endsWith(".json")
+
+  private def sweepLegacyFilesOnce(): Unit =
+    if (
+      sweepLegacyFiles && storageBackend.usesTheFileSystem &&
+      legacyFilesAreSwept.compareAndSet(false, true)
+    )
+      FileBasedStorage.evictFiles(
+        storageDirectory,
+        evictionPolicy,
+        isLegacyFile
+      )
+
+  /** @return
+    *   The size of the database, including any recipe data recorded by earlier
+    *   versions.
+    */
+  def statistics(): StorageStatistics =
+    if (storageBackend.usesTheFileSystem)
+      recipeStorage.statistics() + FileBasedStorage.statisticsOfFiles(
+        storageDirectory,
+        isLegacyFile
+      )
+    else recipeStorage.statistics()
+
+  override def reset(): Unit = {
+    recipeStorage.reset()
+    if (storageBackend.usesTheFileSystem) super.reset()
+    recipeDataCache.invalidateAll()
+  }
+
   def recordRecipeHash(
       recipeHash: Key,
       recipeData: RecipeData
   ): Unit = {
     val json = recipeData.asJson.noSpaces
-    atomicWrite(recipeHash, json)
+    recipeStorage.put(recipeHash, json)
+    // NOTE: invalidating waits for any concurrent read of the same recipe hash
+    // to populate the cache first, so stale recipe data can't linger.
+    recipeDataCache.invalidate(recipeHash)
+
+    sweepLegacyFilesOnce()
   }
 
   override protected def filenameFor(recipeHash: Key): String = {
     s"recipe-data-for-recipe-hash-$recipeHash.json"
   }
 
-  def recipeDataFromRecipeHash(recipeHash: Key): RecipeData = {
+  def recipeDataFromRecipeHash(recipeHash: Key): RecipeData =
+    // NOTE: a missing recipe hash isn't cached, as the exception propagates.
+    recipeDataCache.get(recipeHash, (key: Key) => readRecipeData(key))
+
+  private def readRecipeData(recipeHash: Key): RecipeData = {
     try {
-      val json = atomicRead(recipeHash)
+      val json = recipeStorage
+        .get(recipeHash)
+        .getOrElse(
+          if (storageBackend.usesTheFileSystem) atomicRead(recipeHash)
+          else
+            throw new RecipeIsNotPresentException(recipeHash, storageDirectory)
+        )
 
       parse(json).flatMap(_.as[RecipeData]) match {
         case Right(data) => data
@@ -68,4 +147,20 @@ class TrialsReproductionStorage(baseDir: os.Path) extends FileBasedStorage {
         throw new RecipeIsNotPresentException(recipeHash, storageDirectory)
     }
   }
+
+  // Recipe data recorded before recipe hashes were computed directly from the
+  // decisions is keyed by the legacy recipe hash, so fall back to that.
+  def recipeDataFromDecisionStages(
+      decisionStages: DecisionStages
+  ): RecipeData =
+    try {
+      recipeDataFromRecipeHash(decisionStages.recipeHash)
+    } catch {
+      case exception: RecipeIsNotPresentException =>
+        try {
+          recipeDataFromRecipeHash(decisionStages.legacyRecipeHash)
+        } catch {
+          case _: RecipeIsNotPresentException => throw exception
+        }
+    }
 }
@@ -8,6 +8,8 @@ import com.sageserpent.americium.java.{
   TestIntegrationContext
 }
 
+import _root_.java.util.random.{RandomGenerator, RandomGeneratorFactory}
+
 object tupleTrials {
   class Tuple2Trials[+Case1, +Case2](
       firstTrials: Trials[Case1],
@@ -74,6 +76,34 @@ object tupleTrials {
           self.supplyToSyntax.withValidTrialsCheck(enabled)
       }
 
+      override def withParallelism(
+          parallelism: Int
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2)] =
+          self.supplyToSyntax.withParallelism(parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2)] =
+          self.supplyToSyntax.withRandomGeneratorFactory(randomGeneratorFactory)
+      }
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): SupplyToSyntaxTuple2 = new SupplyToSyntaxTuple2 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2)] =
+          self.supplyToSyntax.withDuplicateDetection(
+            duplicateDetection,
+            budgetInBytes
+          )
+      }
+
       override def supplyTo(consumer: ((Case1, Case2)) => Unit): Unit =
         supplyToSyntax.supplyTo(consumer)
 
@@ -215,6 +245,40 @@ object tupleTrials {
           self.supplyToSyntax.withValidTrialsCheck(enabled)
       }
 
+      override def withParallelism(
+          parallelism: Int
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3)
+      ] = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2, Case3)] =
+          self.supplyToSyntax.withParallelism(parallelism)
+      }
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3)
+      ] = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2, Case3)] =
+          self.supplyToSyntax.withRandomGeneratorFactory(randomGeneratorFactory)
+      }
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3)
+      ] = new SupplyToSyntaxTuple3 {
+        override protected val supplyToSyntax
+            : TrialsScaffolding.SupplyToSyntax[(Case1, Case2, Case3)] =
+          self.supplyToSyntax.withDuplicateDetection(
+            duplicateDetection,
+            budgetInBytes
+          )
+      }
+
       override def supplyTo(consumer: ((Case1, Case2, Case3)) => Unit): Unit =
         supplyToSyntax.supplyTo(consumer)
 
@@ -357,6 +421,28 @@ object tupleTrials {
         (Case1, Case2, Case3, Case4)
       ] = self.supplyToSyntax.withValidTrialsCheck(enabled)
 
+      override def withParallelism(
+          parallelism: Int
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3, Case4)
+      ] = self.supplyToSyntax.withParallelism(parallelism)
+
+      override def withRandomGeneratorFactory(
+          randomGeneratorFactory: RandomGeneratorFactory[_ <: RandomGenerator]
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3, Case4)
+      ] = self.supplyToSyntax.withRandomGeneratorFactory(randomGeneratorFactory)
+
+      override def withDuplicateDetection(
+          duplicateDetection: String,
+          budgetInBytes: Int
+      ): TrialsScaffolding.SupplyToSyntax[
+        (Case1, Case2, Case3, Case4)
+      ] = self.supplyToSyntax.withDuplicateDetection(
+        duplicateDetection,
+        budgetInBytes
+      )
+
       override def supplyTo(
           consumer: ((Case1, Case2, Case3, Case4)) => Unit
       ): Unit = supplyToSyntax.supplyTo(consumer)
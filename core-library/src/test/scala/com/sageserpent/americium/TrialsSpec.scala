@@ -2,19 +2,28 @@ package com.sageserpent.americium
 
 import com.github.valfirst.slf4jtest.TestLoggerFactory
 import com.sageserpent.americium.TrialsScaffolding.{noShrinking, noStopping}
+import com.sageserpent.americium.generation.Decision.{
+  DecisionStagesSyntax,
+  parseRecipe
+}
+import com.sageserpent.americium.generation.GenerationOperation.Syntax
 import com.sageserpent.americium.generation.JavaPropertyNames.{
   nondeterministicJavaProperty,
   recipeHashJavaProperty,
   recipeJavaProperty
 }
+import com.sageserpent.americium.generation.WeightedChoice
 import com.sageserpent.americium.java.{
+  CaseFailureReporting,
   CaseSupplyCycle,
   CasesLimitStrategy,
+  InlinedCaseFiltration,
   NoValidTrialsException,
   RecipeCouldNotBeReproducedException,
   RecipeIsNotPresentException,
   Trials as JavaTrials,
-  TrialsApi as JavaTrialsApi
+  TrialsApi as JavaTrialsApi,
+  TrialsDefaults
 }
 import com.sageserpent.americium.storage.TrialsReproductionStorage
 import cyclops.control.Either as JavaEither
@@ -27,7 +36,10 @@ import org.scalatest.prop.TableDrivenPropertyChecks
 import org.slf4j.event.Level
 
 import _root_.java.lang.Integer as JavaInteger
+import _root_.java.util.concurrent.ConcurrentHashMap
+import _root_.java.util.concurrent.atomic.AtomicInteger
 import _root_.java.util.function.{Consumer, Predicate, Function as JavaFunction}
+import _root_.java.util.random.RandomGeneratorFactory
 import _root_.java.util.stream.IntStream
 import _root_.java.util.{
   Optional,
@@ -35,6 +47,7 @@ import _root_.java.util.{
   LinkedList as JavaLinkedList,
   List as JavaList
 }
+import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
 import scala.collection.mutable.ListBuffer
 import scala.jdk.CollectionConverters.*
@@ -504,6 +517,63 @@ class TrialsSpec
       }
     }
 
+  it should "make the same decisions as the equivalent weighted choice when uniform" in
+    forAll(
+      Table(
+        ("uniform choice", "choices"),
+        (
+          api.characters: Trials[Any],
+          (Char.MinValue to Char.MaxValue): IndexedSeq[Any]
+        ),
+        (
+          javaApi.choose(JavaList.of[Any]("a", 1, 2.0, 'b', true)).scalaTrials,
+          IndexedSeq[Any]("a", 1, 2.0, 'b', true)
+        )
+      )
+    ) { (uniformChoice, choices) =>
+      // NOTE: this weights each choice equally, just as the map-based
+      // representation that preceded `UniformChoice` did.
+      val weightedChoice: Trials[Any] = new TrialsImplementation(
+        WeightedChoice(ArraySeq.range(1, 1 + choices.size), choices)
+      )
+
+      def casesAndRecipes(trials: Trials[Any]): List[(Any, String)] =
+        trials
+          .withLimit(limit)
+          .testIntegrationContexts()
+          .map(context => context.caze -> context.recipe)
+          .toList
+
+      casesAndRecipes(uniformChoice) shouldBe casesAndRecipes(weightedChoice)
+
+      def shrunkCaseAndRecipe(trials: Trials[Any]): (Any, String) = {
+        val exception = intercept[trials.TrialException] {
+          trials
+            .withLimit(limit)
+            .supplyTo(caze =>
+              if (caze != choices.head) throw new RuntimeException
+            )
+        }
+
+        exception.provokingCase -> exception.recipe
+      }
+
+      shrunkCaseAndRecipe(uniformChoice) shouldBe shrunkCaseAndRecipe(
+        weightedChoice
+      )
+
+      def generation(trials: Trials[Any]) =
+        trials.asInstanceOf[TrialsImplementation[Any]].generation
+
+      generation(uniformChoice).structureOutline shouldBe generation(
+        weightedChoice
+      ).structureOutline
+
+      generation(uniformChoice).structureFingerprint shouldBe generation(
+        weightedChoice
+      ).structureFingerprint
+    }
+
   private val isomorphismCaseFactoryTable = Table(
     "isomorphism case factories",
     new CaseFactory[String] {
@@ -595,6 +665,18 @@ class TrialsSpec
       override def lowerBoundInput: BigInt      = Byte.MinValue
       override def upperBoundInput: BigInt      = Byte.MaxValue
       override def maximallyShrunkInput: BigInt = Byte.MinValue / 3
+    },
+    new IntCaseFactory[Int] {
+      override def apply(input: Int): Int       = input
+      override def lowerBoundIntInput: Int      = -5
+      override def upperBoundIntInput: Int      = 5
+      override def maximallyShrunkIntInput: Int = 2
+    },
+    new LongCaseFactory[Long] {
+      override def apply(input: Long): Long       = input
+      override def lowerBoundLongInput: Long      = -10L
+      override def upperBoundLongInput: Long      = 7L
+      override def maximallyShrunkLongInput: Long = -1L
     }
   )
 
@@ -632,6 +714,114 @@ class TrialsSpec
       ))
     }
 
+  "bounded doubles" should "be distributed in proportion to the widths either side of the shrinkage target" in {
+    for (
+      (lowerBound, upperBound) <- Seq(-1.0 -> 100.0, -100.0 -> 1.0, -5.0 -> 5.0)
+    ) {
+      val cases = ListBuffer.empty[Double]
+
+      api.doubles(lowerBound, upperBound).withLimit(limit).supplyTo(cases += _)
+
+      all(cases) should (be >= lowerBound and be <= upperBound)
+
+      val expectedProportionBelowZero =
+        -lowerBound / (upperBound - lowerBound)
+
+      cases.count(0.0 > _).toDouble / cases.size shouldBe expectedProportionBelowZero +- 0.1
+    }
+  }
+
+  "unbounded doubles" should "yield the same cases as bounded doubles over the full range" in {
+    val seed = 8734L
+
+    val cases = ListBuffer.empty[Double]
+
+    api.doubles.withLimit(limit).withSeed(seed).supplyTo(cases += _)
+
+    val casesOverTheFullRange = ListBuffer.empty[Double]
+
+    api
+      .doubles(Double.MinValue, Double.MaxValue, 0.0)
+      .withLimit(limit)
+      .withSeed(seed)
+      .supplyTo(casesOverTheFullRange += _)
+
+    cases shouldBe casesOverTheFullRange
+  }
+
+  "bounded doubles" should "only defer to big decimals beyond the maximum interval for native doubles" in {
+    val seed = 2390L
+
+    def casesFromDoubles(upperBound: Double): Seq[Double] = {
+      val cases = ListBuffer.empty[Double]
+
+      api
+        .doubles(0.0, upperBound, 0.0)
+        .withLimit(limit)
+        .withSeed(seed)
+        .supplyTo(cases += _)
+
+      cases.toSeq
+    }
+
+    def casesFromBigDecimals(upperBound: Double): Seq[Double] = {
+      val cases = ListBuffer.empty[Double]
+
+      api
+        .bigDecimals(0.0, upperBound, 0.0)
+        .map(_.toDouble)
+        .withLimit(limit)
+        .withSeed(seed)
+        .supplyTo(cases += _)
+
+      cases.toSeq
+    }
+
+    val justWithin =
+      TrialsApiImplementation.maximumIntervalForNativeDoubles
+
+    val justBeyond = Math.nextUp(justWithin)
+
+    casesFromDoubles(justWithin) should not be casesFromBigDecimals(
+      justWithin
+    )
+
+    all(casesFromDoubles(justWithin)) should (be >= 0.0 and be <= justWithin)
+
+    casesFromDoubles(justBeyond) shouldBe casesFromBigDecimals(justBeyond)
+  }
+
+  "doubles with special values" should "yield finite cases of both signs across a wide range of magnitudes" in {
+    val cases = ListBuffer.empty[Double]
+
+    api.doublesWithSpecialValues.withLimit(limit).supplyTo(cases += _)
+
+    val finiteCases = cases.filter(_.isFinite)
+
+    finiteCases.exists(0.0 > _) shouldBe true
+    finiteCases.exists(0.0 < _) shouldBe true
+    finiteCases.exists { caze =>
+      val magnitude = Math.abs(caze)
+
+      _root_.java.lang.Double.MIN_NORMAL <= magnitude && 1e-100 > magnitude
+    } shouldBe true
+    finiteCases.exists(caze => 1e100 < Math.abs(caze)) shouldBe true
+  }
+
+  they should "yield all of the special values" in {
+    val cases = ListBuffer.empty[Double]
+
+    api.doublesWithSpecialValues.withLimit(limit).supplyTo(cases += _)
+
+    cases.exists(_.isNaN) shouldBe true
+    cases should contain(Double.PositiveInfinity)
+    cases should contain(Double.NegativeInfinity)
+    cases should contain(Double.MinPositiveValue)
+    cases.exists(caze =>
+      0.0 == caze && 0 > Math.copySign(1.0, caze)
+    ) shouldBe true
+  }
+
   "a choice that includes exceptional cases" should "result in one of the corresponding exceptions" in {
 
     def testBodyInWildcardCapture[X](
@@ -1461,6 +1651,254 @@ class TrialsSpec
     }
   }
 
+  they should "supply the same cases when run in parallel" in {
+    val sut = api.integers.lists
+
+    val casesSuppliedSequentially = mutable.Set.empty[List[Int]]
+
+    sut.withLimit(limit).supplyTo(casesSuppliedSequentially += _)
+
+    val casesSuppliedInParallel =
+      ConcurrentHashMap.newKeySet[List[Int]]()
+
+    sut
+      .withLimit(limit)
+      .withParallelism(4)
+      .supplyTo(casesSuppliedInParallel.add(_))
+
+    casesSuppliedInParallel.asScala should contain theSameElementsAs casesSuppliedSequentially
+  }
+
+  they should "run no more trials in parallel than when run sequentially" in {
+    val sut = api.integers.lists
+
+    def trialCountsForParallelism(parallelism: Int): (Int, Int) = {
+      val numberOfTrials = new AtomicInteger(0)
+
+      val numberOfValidTrials = new AtomicInteger(0)
+
+      sut
+        .withLimit(limit)
+        .withParallelism(parallelism)
+        .supplyTo { caze =>
+          numberOfTrials.incrementAndGet()
+
+          Trials.whenever(0 == caze.size % 3) {
+            numberOfValidTrials.incrementAndGet()
+          }
+        }
+
+      numberOfTrials.get() -> numberOfValidTrials.get()
+    }
+
+    val (numberOfSequentialTrials, numberOfValidSequentialTrials) =
+      trialCountsForParallelism(1)
+
+    numberOfValidSequentialTrials should be <= limit
+
+    numberOfSequentialTrials should be > numberOfValidSequentialTrials
+
+    for (parallelism <- Seq(2, 4, 16)) {
+      trialCountsForParallelism(
+        parallelism
+      ) shouldBe (numberOfSequentialTrials -> numberOfValidSequentialTrials)
+    }
+  }
+
+  they should "yield the same exception when run in parallel" in {
+    val sut = api.integers.lists
+
+    def troublesomeConsumer(caze: List[Int]): Unit =
+      Trials.whenever(caze.nonEmpty) {
+        if (3 < caze.size && caze.sum % 3 == 1)
+          throw ExceptionWithCasePayload(caze)
+      }
+
+    val exceptionFromSequentialSupply = intercept[sut.TrialException](
+      sut.withLimit(limit).supplyTo(troublesomeConsumer)
+    )
+
+    val exceptionFromParallelSupply = intercept[sut.TrialException](
+      sut
+        .withLimit(limit)
+        .withParallelism(4)
+        .supplyTo(troublesomeConsumer)
+    )
+
+    exceptionFromParallelSupply.provokingCase shouldBe exceptionFromSequentialSupply.provokingCase
+
+    exceptionFromParallelSupply.recipe shouldBe exceptionFromSequentialSupply.recipe
+  }
+
+  they should "be supplied deterministically for a seed with any random generator" in {
+    val sut = api.integers.lists
+
+    val seed = 8923L
+
+    for (
+      randomGeneratorFactory <- Seq(
+        TrialsDefaults.defaultRandomGeneratorFactory,
+        TrialsDefaults.legacyRandomGeneratorFactory,
+        RandomGeneratorFactory.of("Xoroshiro128PlusPlus")
+      )
+    ) {
+      def suppliedCases: List[List[Int]] = sut
+        .withLimit(limit)
+        .withSeed(seed)
+        .withRandomGeneratorFactory(randomGeneratorFactory)
+        .asIterator()
+        .toList
+
+      val cases = suppliedCases
+
+      cases should not be empty
+
+      suppliedCases shouldBe cases
+    }
+  }
+
+  they should "be the same for a seed with the legacy random generator as before it was pluggable" in {
+    // NOTE: these were produced by a single `scala.util.Random` built from the
+    // seed, as was used for the entire supply before the random generator
+    // became pluggable: the first attempt draws the key and offset of the
+    // permutation for the choice, and the subsequent attempts cycle through
+    // it without drawing again.
+    val expectedCases = List(107, 285, 719, 164, 606, 651, 122, 335, 405, 324)
+
+    api
+      .choose(0 until 1000)
+      .withLimit(expectedCases.size)
+      .withSeed(8923L)
+      .withRandomGeneratorFactory(TrialsDefaults.legacyRandomGeneratorFactory)
+      .asIterator()
+      .toList shouldBe expectedCases
+  }
+
+  they should "not be supplied again whichever duplicate detection is chosen" in {
+    val sut = api.choose(0 until 50)
+
+    for (
+      duplicateDetection <- Seq(
+        TrialsDefaults.exactDuplicateDetection,
+        TrialsDefaults.hashSetDuplicateDetection,
+        TrialsDefaults.bloomFilterDuplicateDetection
+      )
+    ) {
+      val cases = ListBuffer.empty[Int]
+
+      sut
+        .withLimit(limit)
+        .withDuplicateDetection(
+          duplicateDetection,
+          TrialsDefaults.defaultDuplicateDetectionBudgetInBytes
+        )
+        .supplyTo(cases += _)
+
+      cases should not be empty
+
+      cases.distinct shouldBe cases
+    }
+  }
+
+  they should "be supplied again if the chosen duplicate detection forgets them" in {
+    val cases = ListBuffer.empty[Int]
+
+    // NOTE: this budget only allows the hash set a single slot, so noting a
+    // case forgets the one before.
+    api
+      .choose(0 until 50)
+      .withLimit(limit)
+      .withDuplicateDetection(
+        TrialsDefaults.hashSetDuplicateDetection,
+        16
+      )
+      .supplyTo(cases += _)
+
+    cases.size should be > cases.distinct.size
+  }
+
+  "choosing duplicate detection" should "reject an unknown implementation or a budget that isn't positive" in {
+    an[IllegalArgumentException] should be thrownBy api.integers
+      .withLimit(limit)
+      .withDuplicateDetection("crystalBall", 1 << 10)
+
+    an[IllegalArgumentException] should be thrownBy api.integers
+      .withLimit(limit)
+      .withDuplicateDetection(TrialsDefaults.exactDuplicateDetection, 0)
+  }
+
+  "test integration contexts" should "render their recipes only when asked for" in {
+    val numberOfRecipeRenderings     = new AtomicInteger(0)
+    val numberOfRecipeHashRenderings = new AtomicInteger(0)
+
+    val testIntegrationContext = TestIntegrationContextImplementation(
+      caze = 42,
+      caseFailureReporting = mock(classOf[CaseFailureReporting]),
+      inlinedCaseFiltration = mock(classOf[InlinedCaseFiltration]),
+      isPartOfShrinkage = false
+    )(
+      recipeRendering = { () =>
+        numberOfRecipeRenderings.incrementAndGet()
+        "recipe"
+      },
+      recipeHashRendering = { () =>
+        numberOfRecipeHashRenderings.incrementAndGet()
+        "recipe hash"
+      }
+    )
+
+    testIntegrationContext.caze shouldBe 42
+
+    numberOfRecipeRenderings.get() shouldBe 0
+    numberOfRecipeHashRenderings.get() shouldBe 0
+
+    testIntegrationContext.recipe shouldBe "recipe"
+    testIntegrationContext.recipe shouldBe "recipe"
+
+    numberOfRecipeRenderings.get() shouldBe 1
+    numberOfRecipeHashRenderings.get() shouldBe 0
+
+    testIntegrationContext.recipeHash shouldBe "recipe hash"
+
+    numberOfRecipeHashRenderings.get() shouldBe 1
+  }
+
+  "cases" should "be reproduced in bulk via their recipes" in {
+    val sut = api.integers.lists
+
+    val (cases, recipes) = sut
+      .withLimit(limit)
+      .testIntegrationContexts()
+      .map(context => context.caze -> context.recipe)
+      .toList
+      .unzip
+
+    sut.reproduceAll(recipes).toList shouldBe cases
+
+    sut.reproduceAll(recipes.asJava).toList shouldBe cases
+  }
+
+  they should "be reproduced via either their longhand or compact recipes" in {
+    val sut = api
+      .alternate(
+        api.integers,
+        api.longs,
+        api.bigInts(BigInt(Long.MinValue) * 2, BigInt(Long.MaxValue) * 2)
+      )
+      .lists
+
+    sut.withLimit(limit).testIntegrationContexts().foreach { context =>
+      val decisionStages = parseRecipe(context.recipe)
+
+      parseRecipe(decisionStages.compactRecipe) shouldBe decisionStages
+
+      context.recipeHash shouldBe decisionStages.recipeHash
+
+      sut.reproduce(decisionStages.compactRecipe) shouldBe context.caze
+      sut.reproduce(decisionStages.longhandRecipe) shouldBe context.caze
+    }
+  }
+
   "an exceptional case" should "be reproduced via its recipe" in forAll(
     Table(
       "trials",
@@ -0,0 +1,54 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.utilities.PseudoRandomPermutation
+import com.sageserpent.americium.utilities.randomEnrichment.RichRandom
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.util.Random
+
+class ChoiceCyclingSpec extends AnyFlatSpec with Matchers {
+  private val randomBehaviour = new Random(7823L)
+
+  private def freshPermutation(numberOfChoices: Int): PseudoRandomPermutation =
+    randomBehaviour
+      .buildPseudoRandomPermutationOfIntegersFromZeroToOneLessThan(
+        numberOfChoices
+      )
+
+  behavior of "ChoiceCycling"
+
+  it should "cycle through all the choice indices before starting afresh" in {
+    val choiceCycling = new ChoiceCycling(capacity = 10)
+
+    val indices =
+      Seq.fill(10)(choiceCycling.nextIndex(3, freshPermutation(5)))
+
+    indices.take(5) should contain theSameElementsAs (0 until 5)
+    indices.drop(5) should contain theSameElementsAs (0 until 5)
+
+    choiceCycling.misses shouldBe 2
+    choiceCycling.hits shouldBe 8
+    choiceCycling.evictions shouldBe 0
+  }
+
+  it should "evict the least recently used cycle when full" in {
+    val choiceCycling = new ChoiceCycling(capacity = 2)
+
+    choiceCycling.nextIndex(0, freshPermutation(3))
+    choiceCycling.nextIndex(1, freshPermutation(3))
+    // Touch the first cycle, so that the second is the least recently used.
+    choiceCycling.nextIndex(0, freshPermutation(3))
+    choiceCycling.nextIndex(2, freshPermutation(3))
+
+    choiceCycling.size shouldBe 2
+    choiceCycling.evictions shouldBe 1
+    choiceCycling.misses shouldBe 3
+
+    // The first cycle carries on, whereas the second starts afresh.
+    choiceCycling.nextIndex(0, freshPermutation(3))
+    choiceCycling.hits shouldBe 2
+    choiceCycling.nextIndex(1, freshPermutation(3))
+    choiceCycling.misses shouldBe 4
+  }
+}
@@ -0,0 +1,81 @@
+package com.sageserpent.americium.generation
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.immutable.ArraySeq
+
+class ChoiceSpec extends AnyFlatSpec with Matchers {
+  behavior of "WeightedChoice"
+
+  it should "resolve each index to the choice whose cumulative frequency it falls under" in {
+    val weightedChoice =
+      WeightedChoice(ArraySeq(2, 5, 6), IndexedSeq("a", "b", "c"))
+
+    weightedChoice.numberOfChoices shouldBe 6
+
+    (0 until 6).map(weightedChoice.choiceAt) shouldBe Seq(
+      Some("a"),
+      Some("a"),
+      Some("b"),
+      Some("b"),
+      Some("b"),
+      Some("c")
+    )
+  }
+
+  it should "not resolve an index outside the cumulative frequencies" in {
+    val weightedChoice =
+      WeightedChoice(ArraySeq(2, 5, 6), IndexedSeq("a", "b", "c"))
+
+    weightedChoice.choiceAt(-1) shouldBe None
+    weightedChoice.choiceAt(6) shouldBe None
+
+    WeightedChoice(ArraySeq.empty[Int], IndexedSeq.empty[String])
+      .choiceAt(0) shouldBe None
+  }
+
+  it should "never resolve an index to a choice with a weight of zero" in {
+    val weightedChoice = WeightedChoice(
+      ArraySeq(0, 2, 2, 2, 5, 5),
+      IndexedSeq("zero", "a", "also zero", "still zero", "b", "zero again")
+    )
+
+    weightedChoice.numberOfChoices shouldBe 5
+
+    (0 until 5).map(weightedChoice.choiceAt) shouldBe Seq(
+      Some("a"),
+      Some("a"),
+      Some("b"),
+      Some("b"),
+      Some("b")
+    )
+  }
+
+  it should "be equal to another weighted choice with the same weights and choices" in {
+    val weightedChoice =
+      WeightedChoice(ArraySeq(2, 5, 6), IndexedSeq("a", "b", "c"))
+
+    val anotherWeightedChoice =
+      WeightedChoice(ArraySeq.from(Seq(2, 5, 6)), Vector("a", "b", "c"))
+
+    weightedChoice shouldBe anotherWeightedChoice
+    weightedChoice.hashCode shouldBe anotherWeightedChoice.hashCode
+
+    weightedChoice should not be WeightedChoice(
+      ArraySeq(2, 4, 6),
+      IndexedSeq("a", "b", "c")
+    )
+  }
+
+  it should "have the same choices by cumulative frequency as it was built from" in {
+    WeightedChoice(
+      ArraySeq(2, 5, 6),
+      IndexedSeq("a", "b", "c")
+    ).choicesByCumulativeFrequency.toSeq shouldBe Seq(
+      2 -> "a",
+      5 -> "b",
+      6 -> "c"
+    )
+  }
+}
@@ -0,0 +1,168 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.generation.Decision.DecisionStages
+import com.sageserpent.americium.generation.DecisionStagesInterning.noDecisionStagesIndex
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.util.Random
+
+class DecisionStagesInterningSpec extends AnyFlatSpec with Matchers {
+  private def interned(
+      decisionStagesInterning: DecisionStagesInterning,
+      decisionStages: DecisionStages
+  ): Int = decisionStages.foldLeft(noDecisionStagesIndex)(
+    decisionStagesInterning.intern
+  )
+
+  private def decisionStages(randomBehaviour: Random): DecisionStages =
+    List.fill(randomBehaviour.nextInt(20))(randomBehaviour.nextInt(4) match {
+      case 0 => ChoiceOf(randomBehaviour.nextInt(3))
+      case 1 => FactoryInputOf(randomBehaviour.nextInt(5) - 2)
+      case 2 => FactoryInputOf(randomBehaviour.nextLong())
+      case 3 =>
+        FactoryInputOf(
+          BigInt(Long.MaxValue) * (1 + randomBehaviour.nextInt(3))
+        )
+    })
+
+  behavior of "DecisionStagesInterning"
+
+  it should "yield the same index for the same decision stages, and different indices otherwise" in {
+    val decisionStagesInterning = new DecisionStagesInterning
+
+    val randomBehaviour = new Random(8937L)
+
+    val indicesByDecisionStages =
+      Iterator
+        .continually(decisionStages(randomBehaviour))
+        .take(5000)
+        .toSeq
+        .groupMapReduce(identity)(interned(decisionStagesInterning, _))(
+          (first, second) => {
+            first shouldBe second
+            first
+          }
+        )
+
+    indicesByDecisionStages.values.toSet should have size indicesByDecisionStages.size
+  }
+
+  it should "recover the decision stages from an index" in {
+    val decisionStagesInterning = new DecisionStagesInterning
+
+    val randomBehaviour = new Random(234L)
+
+    for (_ <- 1 to 5000) {
+      val original = decisionStages(randomBehaviour)
+
+      decisionStagesInterning.appendInReverseOnTo(
+        interned(decisionStagesInterning, original),
+        List.empty
+      ) shouldBe original
+    }
+
+    decisionStagesInterning.footprintInBytes should be > 0L
+  }
+
+  it should "intern a factory input given as a long just as it would the equivalent decision" in {
+    val decisionStagesInterning = new DecisionStagesInterning
+
+    val randomBehaviour = new Random(6713L)
+
+    for (_ <- 1 to 5000) {
+      val parentIndex =
+        interned(decisionStagesInterning, decisionStages(randomBehaviour))
+
+      val input = randomBehaviour.nextLong()
+
+      decisionStagesInterning.internLongFactoryInput(
+        parentIndex,
+        input
+      ) shouldBe decisionStagesInterning.intern(
+        parentIndex,
+        FactoryInputOf(input)
+      )
+    }
+  }
+
+  it should "fingerprint the same decision stages alike in any table, and different decision stages differently" in {
+    val firstDecisionStagesInterning  = new DecisionStagesInterning
+    val secondDecisionStagesInterning = new DecisionStagesInterning
+
+    val randomBehaviour = new Random(31337L)
+
+    val fingerprintsByDecisionStages =
+      Iterator
+        .continually(decisionStages(randomBehaviour))
+        .take(5000)
+        .toSeq
+        .distinct
+        .map { original =>
+          val fingerprint = firstDecisionStagesInterning.table.fingerprint(
+            interned(firstDecisionStagesInterning, original),
+            seed = 0L
+          )
+
+          secondDecisionStagesInterning.table.fingerprint(
+            interned(secondDecisionStagesInterning, original),
+            seed = 0L
+          ) shouldBe fingerprint
+
+          firstDecisionStagesInterning.table.fingerprint(
+            interned(firstDecisionStagesInterning, original),
+            seed = 1L
+          ) should not be fingerprint
+
+          original -> fingerprint
+        }
+
+    fingerprintsByDecisionStages.map(_._2).toSet should have size fingerprintsByDecisionStages.size
+  }
+
+  it should "stay within its budget by starting afresh between sequences" in {
+    val maximumNumberOfDecisionStages = 1000
+
+    val decisionStagesInterning =
+      new DecisionStagesInterning(maximumNumberOfDecisionStages)
+
+    val randomBehaviour = new Random(90211L)
+
+    val internedBeforeTheFreshStart = decisionStages(randomBehaviour)
+
+    val tableBeforeTheFreshStart = decisionStagesInterning.table
+
+    val indexBeforeTheFreshStart =
+      interned(decisionStagesInterning, internedBeforeTheFreshStart)
+
+    var largestFootprintInBytes = 0L
+
+    for (_ <- 1 to 50000) {
+      decisionStagesInterning.startAfreshIfOverBudget()
+
+      val original = decisionStages(randomBehaviour)
+
+      decisionStagesInterning.appendInReverseOnTo(
+        interned(decisionStagesInterning, original),
+        List.empty
+      ) shouldBe original
+
+      // NOTE: the budget can only be exceeded by the sequence interned since
+      // the last opportunity to start afresh.
+      decisionStagesInterning.numberOfDecisionStages should be <= maximumNumberOfDecisionStages + original.size
+
+      largestFootprintInBytes =
+        largestFootprintInBytes max decisionStagesInterning.footprintInBytes
+    }
+
+    decisionStagesInterning.epoch should be > 0
+
+    largestFootprintInBytes should be < 100000L
+
+    // Sequences interned before a fresh start are still recoverable.
+    tableBeforeTheFreshStart.appendInReverseOnTo(
+      indexBeforeTheFreshStart,
+      List.empty
+    ) shouldBe internedBeforeTheFreshStart
+  }
+}
@@ -0,0 +1,131 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.utilities.Mixing.mixed
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class DuplicateDetectionSpec extends AnyFlatSpec with Matchers {
+  private val budgetInBytes = 1 << 16
+
+  // NOTE: this is far more than any of the implementations can hold within
+  // `budgetInBytes`, so they all have to forget along the way.
+  private val numberOfDistinctCases = 1000000
+
+  // Mimics the interning, which reuses serial numbers once it starts afresh.
+  private val numberOfSerialNumbersBetweenFreshStarts = 10000
+
+  private def fingerprintOf(distinctCase: Int)(seed: Long): Long =
+    mixed(mixed(seed) ^ distinctCase)
+
+  private def noteALongRunOfDistinctCases(
+      duplicateDetection: DuplicateDetection
+  ): Unit = {
+    var numberOfFalsePositives        = 0
+    var footprintAfterFirstFreshStart = Option.empty[Long]
+
+    for (distinctCase <- 0 until numberOfDistinctCases) {
+      val serialNumber = distinctCase % numberOfSerialNumbersBetweenFreshStarts
+
+      if (0 == serialNumber && 0 < distinctCase) {
+        duplicateDetection.noteFreshStartOfInterning()
+
+        footprintAfterFirstFreshStart = footprintAfterFirstFreshStart.orElse(
+          Some(duplicateDetection.footprintInBytes)
+        )
+      }
+
+      if (
+        !duplicateDetection.noteIfNew(serialNumber, fingerprintOf(distinctCase))
+      ) numberOfFalsePositives += 1
+
+      // A repeat is always detected straight away...
+      duplicateDetection.noteIfNew(
+        serialNumber,
+        fingerprintOf(distinctCase)
+      ) shouldBe false
+
+      // ... and the memory used stays flat.
+      footprintAfterFirstFreshStart.foreach(
+        duplicateDetection.footprintInBytes shouldBe _
+      )
+
+      duplicateDetection.estimatedFalsePositiveRate should be <= 1e-3
+    }
+
+    duplicateDetection.footprintInBytes should be <= budgetInBytes.toLong
+
+    numberOfFalsePositives.toDouble / numberOfDistinctCases should be <= 1e-3
+  }
+
+  "exact duplicate detection" should "stay flat over a long run without false positives" in {
+    val duplicateDetection = new ExactDuplicateDetection
+
+    noteALongRunOfDistinctCases(duplicateDetection)
+
+    duplicateDetection.estimatedFalsePositiveRate shouldBe 0.0
+  }
+
+  "hash set duplicate detection" should "stay within its budget over a long run" in {
+    val duplicateDetection = new HashSetDuplicateDetection(budgetInBytes)
+
+    noteALongRunOfDistinctCases(duplicateDetection)
+
+    duplicateDetection.footprintInBytes shouldBe budgetInBytes.toLong
+  }
+
+  it should "miss duplicates of the cases whose fingerprints it has forgotten" in {
+    val duplicateDetection = new HashSetDuplicateDetection(budgetInBytes)
+
+    noteALongRunOfDistinctCases(duplicateDetection)
+
+    duplicateDetection.numberOfForgottenFingerprints should be > 0L
+
+    // The earliest cases have long since been displaced...
+    (0 until 100).count(distinctCase =>
+      duplicateDetection.noteIfNew(
+        distinctCase % numberOfSerialNumbersBetweenFreshStarts,
+        fingerprintOf(distinctCase)
+      )
+    ) should be > 0
+
+    // ... but false positives are taken to be impossible.
+    duplicateDetection.estimatedFalsePositiveRate shouldBe 0.0
+  }
+
+  "Bloom filter duplicate detection" should "stay within its budget and its false positive rate over a long run" in {
+    val duplicateDetection = new BloomFilterDuplicateDetection(budgetInBytes)
+
+    noteALongRunOfDistinctCases(duplicateDetection)
+
+    duplicateDetection.footprintInBytes shouldBe budgetInBytes.toLong
+  }
+
+  "configured duplicate detection" should "reject an unknown implementation" in {
+    val previous = System.getProperty(
+      JavaPropertyNames.duplicateDetectionJavaProperty
+    )
+
+    try {
+      System.setProperty(
+        JavaPropertyNames.duplicateDetectionJavaProperty,
+        "crystalBall"
+      )
+
+      an[IllegalArgumentException] should be thrownBy DuplicateDetection
+        .configured()
+    } finally {
+      if (null == previous)
+        System.clearProperty(JavaPropertyNames.duplicateDetectionJavaProperty)
+      else
+        System.setProperty(
+          JavaPropertyNames.duplicateDetectionJavaProperty,
+          previous
+        )
+    }
+  }
+
+  it should "reject a budget that isn't positive" in {
+    an[IllegalArgumentException] should be thrownBy DuplicateDetection
+      .factory(DuplicateDetection.exact, 0)
+  }
+}
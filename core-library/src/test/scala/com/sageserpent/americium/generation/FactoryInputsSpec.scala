@@ -0,0 +1,246 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.generation.SupplyToSyntaxSkeletalImplementation.*
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.prop.TableDrivenPropertyChecks
+
+import scala.util.Random
+
+// Compares the arbitrary-precision arithmetic for factory inputs with the
+// primitive arithmetic used when the inputs fit in a `Long`; the two are *not*
+// bit-identical, so this pins down where they differ.
+class FactoryInputsSpec
+    extends AnyFlatSpec
+    with Matchers
+    with TableDrivenPropertyChecks {
+  private val fractions: Seq[Double] = {
+    val randomBehaviour = new Random(8923L)
+
+    Seq.fill(1000)(randomBehaviour.nextDouble())
+  }
+
+  private val scaleDeflationLevels = Table(
+    "scale deflation level",
+    None,
+    Some(10),
+    Some(25),
+    Some(49)
+  )
+
+  private def guidedInputs(
+      maximallyShrunkInput: Long,
+      guideInput: Long,
+      fraction: Double
+  ): (BigInt, BigInt) =
+    guidedFactoryInput(
+      maximallyShrunkInput,
+      guideInput,
+      fraction
+    ) -> BigInt(
+      guidedLongFactoryInput(maximallyShrunkInput, guideInput, fraction)
+    )
+
+  private def unguidedInputs(
+      bounds: LongInputBounds,
+      scaleDeflationLevel: Option[Int],
+      sign: Int,
+      fraction: Double
+  ): (BigInt, BigInt) = {
+    val LongInputBounds(
+      lowerBoundInput,
+      upperBoundInput,
+      maximallyShrunkInput
+    ) = bounds
+
+    val maximumScale: BigDecimal =
+      BigDecimal(BigInt(upperBoundInput)) - BigDecimal(BigInt(lowerBoundInput))
+
+    val maximumLongScale: Double =
+      (upperBoundInput - lowerBoundInput).toDouble
+
+    unguidedFactoryInput(
+      lowerBoundInput,
+      upperBoundInput,
+      maximallyShrunkInput,
+      scaleDeflationLevel.fold(maximumScale)(deflatedScale(maximumScale, _)),
+      sign,
+      fraction
+    ) -> BigInt(
+      unguidedLongFactoryInput(
+        bounds,
+        scaleDeflationLevel.fold(maximumLongScale)(
+          deflatedLongScale(maximumLongScale, _)
+        ),
+        sign,
+        fraction
+      )
+    )
+  }
+
+  "guided factory inputs" should "be the same either way for random fractions when the span is small" in
+    forAll(
+      Table(
+        ("maximally shrunk input", "guide input"),
+        (0L, 100L),
+        (0L, -1000L),
+        (7L, 1L << 20),
+        (0L, Int.MaxValue.toLong),
+        (Int.MinValue.toLong, Int.MaxValue.toLong)
+      )
+    ) { (maximallyShrunkInput, guideInput) =>
+      fractions.foreach { fraction =>
+        val (input, longInput) =
+          guidedInputs(maximallyShrunkInput, guideInput, fraction)
+
+        longInput shouldBe input
+      }
+    }
+
+  they should "differ for these inputs" in
+    forAll(
+      Table(
+        (
+          "maximally shrunk input",
+          "guide input",
+          "fraction",
+          "arbitrary-precision input",
+          "long input"
+        ),
+        // The product of the fraction and the span falls within a rounding
+        // error of a tie.
+        (0L, 3L, 5.0 / 6, BigInt(3), BigInt(2)),
+        (0L, 7L, 3.0 / 14, BigInt(1), BigInt(2)),
+        (0L, 11L, 1.0 / 22, BigInt(1), BigInt(0)),
+        // The span exceeds 2^53.
+        (
+          0L,
+          Long.MaxValue,
+          0.1,
+          BigInt("922337203685477581"),
+          BigInt("922337203685477632")
+        ),
+        (
+          Long.MinValue / 2,
+          Long.MaxValue / 2,
+          1.0 / 3,
+          BigInt("-1537228672809129609"),
+          BigInt("-1537228672809129472")
+        )
+      )
+    ) { (maximallyShrunkInput, guideInput, fraction, input, longInput) =>
+      guidedInputs(
+        maximallyShrunkInput,
+        guideInput,
+        fraction
+      ) shouldBe (input -> longInput)
+    }
+
+  they should "differ in proportion to the span beyond 2^53" in
+    forAll(
+      Table(
+        ("maximally shrunk input", "guide input"),
+        (-5L, 1L << 53),
+        (0L, Long.MaxValue),
+        (Long.MinValue / 2, Long.MaxValue / 2),
+        (Long.MaxValue, -1L)
+      )
+    ) { (maximallyShrunkInput, guideInput) =>
+      val span = (BigInt(guideInput) - maximallyShrunkInput).abs
+
+      fractions.foreach { fraction =>
+        val (input, longInput) =
+          guidedInputs(maximallyShrunkInput, guideInput, fraction)
+
+        (input - longInput).abs should be <= (1 + (span >> 53))
+      }
+    }
+
+  "unguided factory inputs" should "be the same either way for random fractions when the span is small" in
+    forAll(
+      Table(
+        "bounds",
+        LongInputBounds(-128L, 127L, 0L),
+        LongInputBounds(0L, 100L, 7L),
+        LongInputBounds(0L, Char.MaxValue.toLong, 0L),
+        LongInputBounds(Int.MinValue.toLong, Int.MaxValue.toLong, 0L)
+      )
+    ) { bounds =>
+      forAll(scaleDeflationLevels) { scaleDeflationLevel =>
+        for {
+          fraction <- fractions
+          sign     <- Seq(1, -1)
+        } {
+          val (input, longInput) =
+            unguidedInputs(bounds, scaleDeflationLevel, sign, fraction)
+
+          longInput shouldBe input
+        }
+      }
+    }
+
+  they should "differ for these inputs" in
+    forAll(
+      Table(
+        (
+          "bounds",
+          "sign",
+          "fraction",
+          "arbitrary-precision input",
+          "long input"
+        ),
+        // The offset from the midpoint falls within a rounding error of a tie.
+        (LongInputBounds(0L, 3L, 0L), -1, 2.0 / 3, BigInt(1), BigInt(0)),
+        (LongInputBounds(0L, 6L, 0L), 1, 1.0 / 6, BigInt(3), BigInt(4)),
+        (LongInputBounds(0L, 6L, 0L), -1, 1.0 / 6, BigInt(3), BigInt(2)),
+        // The span exceeds 2^53.
+        (
+          LongInputBounds(0L, Long.MaxValue, 0L),
+          1,
+          0.1,
+          BigInt("5072854620270126694"),
+          BigInt("5072854620270127104")
+        ),
+        (
+          LongInputBounds(Long.MinValue / 2, Long.MaxValue / 2, 0L),
+          -1,
+          0.7,
+          BigInt("-3228180212899171533"),
+          BigInt("-3228180212899171328")
+        )
+      )
+    ) { (bounds, sign, fraction, input, longInput) =>
+      unguidedInputs(
+        bounds,
+        scaleDeflationLevel = None,
+        sign,
+        fraction
+      ) shouldBe (input -> longInput)
+    }
+
+  they should "differ in proportion to the span beyond 2^53" in
+    forAll(
+      Table(
+        "bounds",
+        LongInputBounds(-(1L << 52), 1L << 52, 0L),
+        LongInputBounds(0L, Long.MaxValue, 0L),
+        LongInputBounds(Long.MinValue / 2, Long.MaxValue / 2, 0L),
+        LongInputBounds(-1L, Long.MaxValue - 1, 0L),
+        LongInputBounds(Long.MinValue / 2, Long.MaxValue / 2, Long.MaxValue / 2)
+      )
+    ) { bounds =>
+      val span = BigInt(bounds.upperBound) - bounds.lowerBound
+
+      forAll(scaleDeflationLevels) { scaleDeflationLevel =>
+        for {
+          fraction <- fractions
+          sign     <- Seq(1, -1)
+        } {
+          val (input, longInput) =
+            unguidedInputs(bounds, scaleDeflationLevel, sign, fraction)
+
+          (input - longInput).abs should be <= (1 + (span >> 53))
+        }
+      }
+    }
+}
@@ -0,0 +1,74 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.Trials
+import com.sageserpent.americium.generation.MonadicInterpretation.monadically
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.prop.TableDrivenPropertyChecks
+
+class InterpretationSpec
+    extends AnyFlatSpec
+    with Matchers
+    with TableDrivenPropertyChecks {
+  private val api = Trials.api
+
+  private val limit = 350
+
+  private val seeds = Table("seed", 734L, -8923L, 1L << 40)
+
+  private val trialsTable = Table(
+    "trials",
+    api.integers,
+    api.doubles(-10, 10),
+    api.strings,
+    api.integers.lists,
+    api.uniqueIds.flatMap(id => api.integers(0, id).map(id -> _)),
+    api.choose(1 to 10).filter(0 == _ % 3).several[Set[Int]],
+    api.alternateWithWeights(
+      2 -> api.longs.map(_.toString),
+      1 -> api.bigInts(-1000, 1000).map(_.toString)
+    )
+  )
+
+  "direct interpretation" should "yield the same cases and recipes as monadic interpretation" in
+    forAll(trialsTable) { trials =>
+      forAll(seeds) { seed =>
+        def casesAndRecipes(): Seq[(Any, String)] = trials
+          .withLimit(limit)
+          .withSeed(seed)
+          .testIntegrationContexts()
+          .map(context => context.caze -> context.recipe)
+          .toSeq
+
+        val directlyInterpretedCasesAndRecipes = casesAndRecipes()
+
+        directlyInterpretedCasesAndRecipes should not be empty
+
+        monadically(
+          casesAndRecipes()
+        ) shouldBe directlyInterpretedCasesAndRecipes
+      }
+    }
+
+  it should "shrink to the same case as monadic interpretation" in
+    forAll(trialsTable) { trials =>
+      forAll(seeds) { seed =>
+        def exception(): trials.TrialException =
+          intercept[trials.TrialException] {
+            trials
+              .withLimit(limit)
+              .withSeed(seed)
+              .supplyTo(caze =>
+                if (1 < caze.toString.length) throw new RuntimeException
+              )
+          }
+
+        val directException = exception()
+
+        val monadicException = monadically(exception())
+
+        monadicException.provokingCase shouldBe directException.provokingCase
+        monadicException.recipe shouldBe directException.recipe
+      }
+    }
+}
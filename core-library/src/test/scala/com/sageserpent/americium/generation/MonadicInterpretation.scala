@@ -0,0 +1,31 @@
+package com.sageserpent.americium.generation
+
+import cats.~>
+import com.sageserpent.americium.generation.GenerationOperation.{
+  Abandonment,
+  Interpretation
+}
+
+// Reference interpretation that folds a generation into `Option`, rather than
+// stepping through it in a loop as `GenerationOperation.interpretDirectly`
+// does; abandoning the case short-circuits the fold. This is only used to
+// cross-check the direct interpretation.
+object MonadicInterpretation {
+  val interpretation: Interpretation = (generation, interpret) =>
+    generation
+      .foldMap(new (GenerationOperation ~> Option) {
+        override def apply[ArbitraryCase](
+            generationOperation: GenerationOperation[ArbitraryCase]
+        ): Option[ArbitraryCase] =
+          interpret(
+            generationOperation.asInstanceOf[GenerationOperation[Any]]
+          ) match {
+            case Abandonment => None
+            case result      => Some(result.asInstanceOf[ArbitraryCase])
+          }
+      })
+      .getOrElse(Abandonment)
+
+  def monadically[Result](block: => Result): Result =
+    GenerationOperation.interpretation.withValue(interpretation)(block)
+}
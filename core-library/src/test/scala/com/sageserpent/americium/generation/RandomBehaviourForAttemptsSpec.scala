@@ -0,0 +1,101 @@
+package com.sageserpent.americium.generation
+
+import com.sageserpent.americium.generation.RandomBehaviourForAttempts.childSeed
+import com.sageserpent.americium.java.TrialsDefaults
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import _root_.java.util.random.RandomGeneratorFactory
+
+class RandomBehaviourForAttemptsSpec extends AnyFlatSpec with Matchers {
+  private val seed = 89123L
+
+  private val numberOfAttempts = 100
+
+  private val numberOfDrawsPerAttempt = 10
+
+  private def drawsForAttempts(
+      randomBehaviourForAttempts: RandomBehaviourForAttempts,
+      attemptIndices: Seq[Long]
+  ): Seq[Seq[Long]] = attemptIndices.map { attemptIndex =>
+    randomBehaviourForAttempts.startAttempt(attemptIndex)
+
+    Seq.fill(numberOfDrawsPerAttempt)(
+      randomBehaviourForAttempts.randomBehaviour.nextLong()
+    )
+  }
+
+  "random behaviour for attempts" should "be identical across runs for the same seed" in {
+    for (
+      randomGeneratorFactory <- Seq(
+        TrialsDefaults.defaultRandomGeneratorFactory,
+        TrialsDefaults.legacyRandomGeneratorFactory
+      )
+    ) {
+      def draws: Seq[Seq[Long]] = drawsForAttempts(
+        RandomBehaviourForAttempts.forSupply(randomGeneratorFactory, seed)(
+          0,
+          0
+        ),
+        0L until numberOfAttempts
+      )
+
+      draws shouldBe draws
+    }
+  }
+
+  it should "allow any attempt to be regenerated on its own from its child seed" in {
+    val randomGeneratorFactory = TrialsDefaults.defaultRandomGeneratorFactory
+
+    val cycleIndex            = 2
+    val shrinkageAttemptIndex = 5
+
+    val drawsInSequence = drawsForAttempts(
+      RandomBehaviourForAttempts.forSupply(randomGeneratorFactory, seed)(
+        cycleIndex,
+        shrinkageAttemptIndex
+      ),
+      0L until numberOfAttempts
+    )
+
+    drawsInSequence.distinct should have size numberOfAttempts
+
+    val seedForShrinkageAttempt =
+      childSeed(childSeed(seed, cycleIndex), shrinkageAttemptIndex)
+
+    for (attemptIndex <- 0 until numberOfAttempts) {
+      drawsForAttempts(
+        RandomBehaviourForAttempts.seeded(
+          randomGeneratorFactory,
+          seedForShrinkageAttempt
+        ),
+        Seq(attemptIndex.toLong)
+      ) shouldBe Seq(drawsInSequence(attemptIndex))
+
+      val randomGenerator = randomGeneratorFactory.create(
+        childSeed(seedForShrinkageAttempt, attemptIndex)
+      )
+
+      Seq.fill(numberOfDrawsPerAttempt)(
+        randomGenerator.nextLong()
+      ) shouldBe drawsInSequence(attemptIndex)
+    }
+  }
+
+  it should "reuse the same random behaviour across attempts" in {
+    val randomBehaviourForAttempts = RandomBehaviourForAttempts.seeded(
+      RandomGeneratorFactory.of("Xoroshiro128PlusPlus"),
+      seed
+    )
+
+    randomBehaviourForAttempts.startAttempt(0L)
+
+    val randomBehaviour = randomBehaviourForAttempts.randomBehaviour
+
+    for (attemptIndex <- 1L until numberOfAttempts) {
+      randomBehaviourForAttempts.startAttempt(attemptIndex)
+
+      randomBehaviourForAttempts.randomBehaviour should be theSameInstanceAs randomBehaviour
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package com.sageserpent.americium.storage
+
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import _root_.java.util.concurrent.{Callable, Executors, TimeUnit}
+import scala.jdk.CollectionConverters.*
+
+object AppendOnlyLogStorageSpec {
+  private val numberOfKeysPerWriter = 300
+
+  private def keyFor(writer: String, i: Int): String = s"$writer-key$i"
+
+  private def valueFor(writer: String, i: Int): String = s"$writer-value$i"
+
+  // Puts keys for `writer`, checking that each can be got back straight away
+  // despite the other writers; this is run in its own JVM by the tests.
+  private def write(storage: AppendOnlyLogStorage, writer: String): Unit =
+    (1 to numberOfKeysPerWriter).foreach { i =>
+      storage.put(keyFor(writer, i), valueFor(writer, i))
+      storage.put("shared-key", valueFor(writer, i))
+
+      if (!storage.get(keyFor(writer, i)).contains(valueFor(writer, i)))
+        throw new AssertionError(s"Lost ${keyFor(writer, i)}.")
+    }
+
+  def main(args: Array[String]): Unit = {
+    val directory = os.Path(args(0))
+    val writer    = args(1)
+
+    write(new AppendOnlyLogStorage(directory), writer)
+  }
+}
+
+class AppendOnlyLogStorageSpec extends AnyFlatSpec with Matchers {
+  import AppendOnlyLogStorageSpec.*
+  behavior of "AppendOnlyLogStorage"
+
+  it should "yield the latest value put for each key" in {
+    val storage = new AppendOnlyLogStorage(
+      os.temp.dir(prefix = "americium-test-") / "log"
+    )
+
+    storage.get("key") shouldBe None
+
+    // Put enough keys to make the index grow several times over.
+    (1 to 5000).foreach(i => storage.put(s"key$i", s"value$i"))
+    (1 to 5000 by 3).foreach(i => storage.put(s"key$i", s"revised value$i"))
+
+    (1 to 5000).foreach { i =>
+      storage.get(s"key$i") shouldBe Some(
+        if (1 == i % 3) s"revised value$i" else s"value$i"
+      )
+    }
+
+    storage.get("key") shouldBe None
+  }
+
+  it should "preserve the latest values when compacting" in {
+    val directory = os.temp.dir(prefix = "americium-test-") / "log"
+
+    val storage = new AppendOnlyLogStorage(directory)
+
+    val bulkyValue = "*" * 1000
+
+    // Overwrite the same few keys enough to trigger automatic compaction.
+    for {
+      round <- 1 to 200
+      i     <- 1 to 10
+    } storage.put(s"key$i", s"$bulkyValue$round")
+
+    (1 to 10).foreach { i =>
+      storage.get(s"key$i") shouldBe Some(s"${bulkyValue}200")
+    }
+
+    os.size(directory / "storage.log") should be < (1L << 20)
+
+    storage.compact()
+
+    (1 to 10).foreach { i =>
+      storage.get(s"key$i") shouldBe Some(s"${bulkyValue}200")
+    }
+  }
+
+  it should "recover from a lost index and a partially written record" in {
+    val directory = os.temp.dir(prefix = "americium-test-") / "log"
+
+    val storage = new AppendOnlyLogStorage(directory)
+
+    (1 to 100).foreach(i => storage.put(s"key$i", s"value$i"))
+
+    os.remove(directory / "storage.index")
+    // Simulate a writer that died part way through appending.
+    os.write.append(directory / "storage.log", Array[Byte](0, 0, 0, 5, 0))
+
+    (1 to 100).foreach(i => storage.get(s"key$i") shouldBe Some(s"value$i"))
+
+    storage.put("key101", "value101")
+
+    storage.get("key101") shouldBe Some("value101")
+  }
+
+  it should "remove everything on reset" in {
+    val directory = os.temp.dir(prefix = "americium-test-") / "log"
+
+    val storage = new AppendOnlyLogStorage(directory)
+
+    storage.put("key", "value")
+
+    storage.reset()
+
+    os.exists(directory) shouldBe false
+    storage.get("key") shouldBe None
+  }
+
+  it should "not commit a record whose writer died before updating the header" in {
+    val directory = os.temp.dir(prefix = "americium-test-") / "log"
+
+    val storage = new AppendOnlyLogStorage(directory)
+
+    (1 to 100).foreach(i => storage.put(s"key$i", s"value$i"))
+
+    val indexBeforehand = os.read.bytes(directory / "storage.index")
+
+    storage.put("key1", "revised value1")
+    storage.put("key101", "value101")
+
+    // Simulate a writer that appended the records and updated their buckets,
+    // but died before committing them by updating the index header.
+    val indexAfterwards = os.read.bytes(directory / "storage.index")
+
+    os.write.over(
+      directory / "storage.index",
+      indexBeforehand.take(64) ++ indexAfterwards.drop(64)
+    )
+
+    storage.get("key1") shouldBe Some("value1")
+    storage.get("key101") shouldBe None
+
+    (2 to 100).foreach(i => storage.get(s"key$i") shouldBe Some(s"value$i"))
+
+    storage.put("key101", "value101")
+
+    storage.get("key101") shouldBe Some("value101")
+  }
+
+  it should "put and get consistently from several threads" in {
+    val storage = new AppendOnlyLogStorage(
+      os.temp.dir(prefix = "americium-test-") / "log"
+    )
+
+    val writers = (1 to 8).map(writer => s"thread$writer")
+
+    val executorService = Executors.newFixedThreadPool(writers.size)
+
+    try {
+      executorService
+        .invokeAll(
+          writers
+            .map(writer =>
+              new Callable[Unit] {
+                override def call(): Unit = write(storage, writer)
+              }
+            )
+            .asJava
+        )
+        .asScala
+        .foreach(_.get())
+    } finally {
+      executorService.shutdown()
+      executorService.awaitTermination(1, TimeUnit.MINUTES)
+    }
+
+    for {
+      writer <- writers
+      i      <- 1 to numberOfKeysPerWriter
+    } storage.get(keyFor(writer, i)) shouldBe Some(valueFor(writer, i))
+
+    writers.map(valueFor(_, numberOfKeysPerWriter)) should contain(
+      storage.get("shared-key").get
+    )
+  }
+
+  it should "put and get consistently from several processes" in {
+    val directory = os.temp.dir(prefix = "americium-test-") / "log"
+
+    val writers = (1 to 4).map(writer => s"process$writer")
+
+    val javaExecutable =
+      os.Path(System.getProperty("java.home")) / "bin" / "java"
+
+    val processes = writers.map(writer =>
+      os.proc(
+        javaExecutable,
+        "-cp",
+        System.getProperty("java.class.path"),
+        "com.sageserpent.americium.storage.AppendOnlyLogStorageSpec",
+        directory.toString,
+        writer
+      ).spawn(stderr = os.Inherit)
+    )
+
+    // Write from this process too, while the others are doing so.
+    write(new AppendOnlyLogStorage(directory), "thisProcess")
+
+    processes.foreach { process =>
+      process.waitFor(timeout = 60000L) shouldBe true
+      process.exitCode() shouldBe 0
+    }
+
+    val storage = new AppendOnlyLogStorage(directory)
+
+    for {
+      writer <- writers :+ "thisProcess"
+      i      <- 1 to numberOfKeysPerWriter
+    } storage.get(keyFor(writer, i)) shouldBe Some(valueFor(writer, i))
+
+    (writers :+ "thisProcess").map(
+      valueFor(_, numberOfKeysPerWriter)
+    ) should contain(storage.get("shared-key").get)
+  }
+}
@@ -0,0 +1,156 @@
+package com.sageserpent.americium.storage
+
+import com.sageserpent.americium.java.RecipeIsNotPresentException
+import com.sageserpent.americium.storage.TrialsReproductionStorage.RecipeData
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.duration.*
+
+class StorageBackendSpec extends AnyFlatSpec with Matchers {
+  private val storageBackends = Seq(
+    StorageBackend.filePerKey,
+    StorageBackend.indexedLog,
+    StorageBackend.inMemory
+  )
+
+  behavior of "StorageBackend"
+
+  storageBackends.foreach { storageBackend =>
+    it should s"store and reset entries using ${storageBackend.name}" in {
+      val directory = os.temp.dir(prefix = "americium-test-") / "storage"
+
+      val storage =
+        storageBackend.storageFor(directory, EvictionPolicy.unbounded)
+
+      storage.put("key", "value")
+      storage.putAll(Seq("key" -> "revised value", "another key" -> "value"))
+
+      // Separate storage for the same directory sees the same entries.
+      val sameStorage =
+        storageBackend.storageFor(directory, EvictionPolicy.unbounded)
+
+      sameStorage.get("key") shouldBe Some("revised value")
+      sameStorage.get("another key") shouldBe Some("value")
+      sameStorage.get("missing key") shouldBe None
+
+      storage.statistics().numberOfEntries shouldBe 2
+
+      storage.reset()
+
+      sameStorage.get("key") shouldBe None
+      sameStorage.statistics().numberOfEntries shouldBe 0
+    }
+
+    it should s"evict entries beyond the maximum number using ${storageBackend.name}" in {
+      val storage = storageBackend.storageFor(
+        os.temp.dir(prefix = "americium-test-") / "storage",
+        EvictionPolicy(
+          maximumNumberOfEntries = 100L,
+          maximumNumberOfBytes = Long.MaxValue,
+          timeToLive = 1.day
+        )
+      )
+
+      // Enough to make sure that a file per key is swept after the first put.
+      (0 to 1000).foreach(i => storage.put(s"key$i", s"value$i"))
+
+      storage.statistics().numberOfEntries should be <= 100L
+    }
+  }
+
+  Seq(StorageBackend.indexedLog, StorageBackend.inMemory).foreach {
+    storageBackend =>
+      it should s"evict the least recently used entries using ${storageBackend.name}" in {
+        val storage = storageBackend.storageFor(
+          os.temp.dir(prefix = "americium-test-") / "storage",
+          EvictionPolicy(
+            maximumNumberOfEntries = 10L,
+            maximumNumberOfBytes = Long.MaxValue,
+            timeToLive = 1.day
+          )
+        )
+
+        (0 until 20).foreach(i => storage.put(s"key$i", s"value$i"))
+
+        storage.get("key0") shouldBe None
+        storage.get("key19") shouldBe Some("value19")
+      }
+
+      it should s"evict expired entries using ${storageBackend.name}" in {
+        val storage = storageBackend.storageFor(
+          os.temp.dir(prefix = "americium-test-") / "storage",
+          EvictionPolicy(
+            maximumNumberOfEntries = Long.MaxValue,
+            maximumNumberOfBytes = Long.MaxValue,
+            timeToLive = 100.milliseconds
+          )
+        )
+
+        storage.put("stale key", "value")
+
+        Thread.sleep(200L)
+
+        storage.put("fresh key", "value")
+
+        storage.get("stale key") shouldBe None
+        storage.get("fresh key") shouldBe Some("value")
+      }
+  }
+
+  it should "not touch the file system when in memory" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    val storage =
+      new TrialsReproductionStorage(baseDir, StorageBackend.inMemory)
+
+    storage.statistics().numberOfEntries shouldBe 0
+
+    storage.recordRecipeHash("hash", RecipeData("recipe", Some("fingerprint")))
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "recipe"
+
+    os.list(baseDir) shouldBe empty
+
+    storage.reset()
+
+    an[RecipeIsNotPresentException] should be thrownBy {
+      storage.recipeDataFromRecipeHash("hash")
+    }
+  }
+
+  it should "select the backend named by the Java property" in {
+    val previousValue = Option(System.getProperty("trials.storageBackend"))
+
+    try {
+      System.setProperty("trials.storageBackend", "filePerKey")
+
+      StorageBackend.selected() shouldBe StorageBackend.filePerKey
+
+      System.setProperty("trials.storageBackend", "noSuchBackend")
+
+      a[RuntimeException] should be thrownBy StorageBackend.selected()
+    } finally
+      previousValue match {
+        case Some(value) => System.setProperty("trials.storageBackend", value)
+        case None        => System.clearProperty("trials.storageBackend")
+      }
+  }
+
+  it should "refuse a different selection once shared storage is set up" in {
+    val selection = new StorageBackend.Selection
+
+    selection.select(StorageBackend.inMemory)
+
+    selection.selectedForSharedStorage() shouldBe StorageBackend.inMemory
+
+    // Selecting the backend already in use is harmless.
+    selection.select(StorageBackend.inMemory)
+
+    an[IllegalStateException] should be thrownBy selection.select(
+      StorageBackend.filePerKey
+    )
+
+    selection.selected() shouldBe StorageBackend.inMemory
+  }
+}
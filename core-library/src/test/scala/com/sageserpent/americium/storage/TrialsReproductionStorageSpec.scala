@@ -1,5 +1,10 @@
 package com.sageserpent.americium.storage
 
+import com.sageserpent.americium.generation.{
+  ChoiceOf,
+  Decision,
+  FactoryInputOf
+}
 import com.sageserpent.americium.java.RecipeIsNotPresentException
 import com.sageserpent.americium.storage.TrialsReproductionStorage.RecipeData
 import org.scalatest.exceptions.TestFailedException
@@ -19,7 +24,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
       new Thread(() => {
         storage.recordRecipeHash(
           s"hash$i",
-          RecipeData(s"recipe$i", s"outline$i")
+          RecipeData(s"recipe$i", Some(s"fingerprint$i"))
         )
       })
     }
@@ -29,10 +34,10 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
 
     // Verify all 10 recipes present
     (1 to 10).foreach { i =>
-      val RecipeData(recipe, structureOutline) =
+      val RecipeData(recipe, structureFingerprint, _) =
         storage.recipeDataFromRecipeHash(s"hash$i")
       recipe shouldBe s"recipe$i"
-      structureOutline shouldBe s"outline$i"
+      structureFingerprint shouldBe Some(s"fingerprint$i")
     }
   }
 
@@ -49,7 +54,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
           try {
             storage.recordRecipeHash(
               "same-hash",
-              RecipeData(s"recipe-$i", s"outline-$i")
+              RecipeData(s"recipe-$i", Some(s"fingerprint-$i"))
             )
           } catch {
             case throwable: Throwable => testFailure = Some(throwable)
@@ -61,7 +66,8 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
       threads.foreach(_.join())
 
       // Last writer wins - verify one valid recipe present
-      val RecipeData(recipe, _) = storage.recipeDataFromRecipeHash("same-hash")
+      val RecipeData(recipe, _, _) =
+        storage.recipeDataFromRecipeHash("same-hash")
       recipe should startWith("recipe-")
 
       testFailure.foreach {
@@ -79,7 +85,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
     // Pre-populate with initial recipe
     storage.recordRecipeHash(
       "test-hash",
-      RecipeData("initial", "initial-outline")
+      RecipeData("initial", Some("initial-fingerprint"))
     )
 
     @volatile var keepRunning: Boolean           = true
@@ -91,7 +97,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
       while (keepRunning) {
         storage.recordRecipeHash(
           "test-hash",
-          RecipeData(s"recipe-$counter", s"outline-$counter")
+          RecipeData(s"recipe-$counter", Some(s"fingerprint-$counter"))
         )
         counter += 1
       }
@@ -101,15 +107,15 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
     val reader = new Thread(() => {
       while (keepRunning) {
         try {
-          val RecipeData(recipe, structureOutline) =
+          val RecipeData(recipe, structureFingerprint, _) =
             storage.recipeDataFromRecipeHash("test-hash")
 
-          // Verify consistency: recipe and outline should match
+          // Verify consistency: recipe and fingerprint should match
           if (recipe.startsWith("recipe-")) {
             val num             = recipe.stripPrefix("recipe-")
-            val expectedOutline = s"outline-$num"
+            val expectedFingerprint = s"fingerprint-$num"
 
-            structureOutline should be(expectedOutline)
+            structureFingerprint should be(Some(expectedFingerprint))
           }
         } catch {
           case throwable: Throwable => testFailure = Some(throwable)
@@ -139,7 +145,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
     os.remove.all(baseDir) // Ensure it doesn't exist
 
     val storage = new TrialsReproductionStorage(baseDir)
-    storage.recordRecipeHash("hash", RecipeData("recipe", "outline"))
+    storage.recordRecipeHash("hash", RecipeData("recipe", Some("fingerprint")))
 
     os.exists(baseDir / "recipes") shouldBe true
   }
@@ -151,7 +157,7 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
 
     // Recipe hashes are typically hex, but test robustness
     val hash = "abc123-def456_xyz789"
-    storage.recordRecipeHash(hash, RecipeData("recipe", "outline"))
+    storage.recordRecipeHash(hash, RecipeData("recipe", Some("fingerprint")))
 
     storage.recipeDataFromRecipeHash(hash).recipe shouldBe "recipe"
   }
@@ -172,8 +178,8 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
     )
 
     // Add some recipes
-    storage.recordRecipeHash("hash1", RecipeData("recipe1", "outline1"))
-    storage.recordRecipeHash("hash2", RecipeData("recipe2", "outline2"))
+    storage.recordRecipeHash("hash1", RecipeData("recipe1", Some("fingerprint1")))
+    storage.recordRecipeHash("hash2", RecipeData("recipe2", Some("fingerprint2")))
 
     // Reset
     storage.reset()
@@ -187,6 +193,47 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
     }
   }
 
+  it should "find recipe data recorded a file per recipe hash by earlier versions" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    os.write(
+      baseDir / "recipes" / "recipe-data-for-recipe-hash-hash.json",
+      """{"recipe":"earlier","structureFingerprint":"fingerprint"}""",
+      createFolders = true
+    )
+
+    val storage = new TrialsReproductionStorage(baseDir)
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "earlier"
+
+    // Recording the same hash afresh supersedes the earlier file.
+    storage.recordRecipeHash("hash", RecipeData("recipe", Some("fingerprint")))
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "recipe"
+  }
+
+  it should "serve repeated lookups from its read cache, invalidating it on writes" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    val storage = new TrialsReproductionStorage(baseDir)
+
+    storage.recordRecipeHash("hash", RecipeData("recipe", Some("fingerprint")))
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "recipe"
+
+    // Pull the rug out from underneath the storage...
+    os.remove.all(baseDir)
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "recipe"
+
+    storage.recordRecipeHash(
+      "hash",
+      RecipeData("revised recipe", Some("fingerprint"))
+    )
+
+    storage.recipeDataFromRecipeHash("hash").recipe shouldBe "revised recipe"
+  }
+
   it should "handle JSON special characters in recipes" in {
     val storage = new TrialsReproductionStorage(
       os.temp.dir(prefix = "americium-test-")
@@ -196,11 +243,94 @@ class TrialsReproductionStorageSpec extends AnyFlatSpec with Matchers {
       """{"key":"value with \"quotes\" and \n newlines"}"""
     storage.recordRecipeHash(
       "hash",
-      RecipeData(recipeWithSpecialChars, "outline")
+      RecipeData(recipeWithSpecialChars, Some("fingerprint"))
     )
 
     storage
       .recipeDataFromRecipeHash("hash")
       .recipe shouldBe recipeWithSpecialChars
   }
+
+  it should "find recipe data keyed by either the current or the legacy recipe hash" in {
+    val storage = new TrialsReproductionStorage(
+      os.temp.dir(prefix = "americium-test-")
+    )
+
+    val currentDecisionStages: List[Decision] =
+      List(ChoiceOf(2), FactoryInputOf(-7), FactoryInputOf(BigInt(2).pow(80)))
+    val legacyDecisionStages: List[Decision] =
+      List(ChoiceOf(1), FactoryInputOf(3))
+
+    storage.recordRecipeHash(
+      currentDecisionStages.recipeHash,
+      RecipeData("current", Some("fingerprint"))
+    )
+    storage.recordRecipeHash(
+      legacyDecisionStages.legacyRecipeHash,
+      RecipeData("legacy", Some("fingerprint"))
+    )
+
+    storage
+      .recipeDataFromDecisionStages(currentDecisionStages)
+      .recipe shouldBe "current"
+    storage
+      .recipeDataFromDecisionStages(legacyDecisionStages)
+      .recipe shouldBe "legacy"
+
+    an[RecipeIsNotPresentException] should be thrownBy {
+      storage.recipeDataFromDecisionStages(List(ChoiceOf(0)))
+    }
+  }
+
+  it should "compute the legacy recipe hash as recipe hashes used to be computed" in {
+    val decisionStages: List[Decision] = List(ChoiceOf(1), FactoryInputOf(3))
+
+    // This is the recipe hash that recipe data for these decision stages was
+    // recorded under before recipe hashes were computed from the decisions.
+    decisionStages.legacyRecipeHash shouldBe "2c0a196090fb4e2924add1451ab97f0a"
+
+    decisionStages.recipeHash should not be decisionStages.legacyRecipeHash
+  }
+
+  it should "only fall back to the legacy recipe hash if there is no recipe data for the current one" in {
+    val storage = new TrialsReproductionStorage(
+      os.temp.dir(prefix = "americium-test-")
+    )
+
+    val decisionStages: List[Decision] =
+      List(ChoiceOf(5), FactoryInputOf(BigInt(-3).pow(50)))
+
+    storage.recordRecipeHash(
+      decisionStages.legacyRecipeHash,
+      RecipeData("legacy", Some("fingerprint"))
+    )
+
+    storage
+      .recipeDataFromDecisionStages(decisionStages)
+      .recipe shouldBe "legacy"
+
+    storage.recordRecipeHash(
+      decisionStages.recipeHash,
+      RecipeData("current", Some("fingerprint"))
+    )
+
+    storage
+      .recipeDataFromDecisionStages(decisionStages)
+      .recipe shouldBe "current"
+  }
+
+  it should "report the current recipe hash if neither recipe hash has recipe data" in {
+    val storage = new TrialsReproductionStorage(
+      os.temp.dir(prefix = "americium-test-")
+    )
+
+    val decisionStages: List[Decision] = List(ChoiceOf(0), FactoryInputOf(1))
+
+    val exception = intercept[RecipeIsNotPresentException] {
+      storage.recipeDataFromDecisionStages(decisionStages)
+    }
+
+    exception.getMessage should include(decisionStages.recipeHash)
+    exception.getMessage should not include (decisionStages.legacyRecipeHash)
+  }
 }
@@ -1,9 +1,11 @@
 package com.sageserpent.americium.junit5.java;
 
+import com.sageserpent.americium.junit5.storage.JUnit5ReplayStorage;
 import org.junit.platform.engine.TestExecutionResult;
 import org.junit.platform.engine.UniqueId;
 import org.junit.platform.launcher.TestExecutionListener;
 import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
 
 import java.util.Optional;
 
@@ -37,4 +39,14 @@ public class TestExecutionListenerCapturingUniqueIds implements
         TestExecutionListener.super.executionFinished(testIdentifier,
                                                       testExecutionResult);
     }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        // Replay recipes may be written behind, so make sure they are all in
+        // storage before the launcher is done with the tests. There is nothing
+        // to flush if no trials were run, so don't set up storage in that case.
+        JUnit5ReplayStorage.flushIfCreated();
+
+        TestExecutionListener.super.testPlanExecutionFinished(testPlan);
+    }
 }
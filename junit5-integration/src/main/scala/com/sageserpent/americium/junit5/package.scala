@@ -225,16 +225,17 @@ package object junit5 {
         val caze                  = context.caze
         val inlinedCaseFiltration = context.inlinedCaseFiltration
         val caseFailureReporting  = context.caseFailureReporting
-        val recipe                = context.recipe
 
         dynamicTest(
           s"[${1 + invocationIndex}] $shrinkagePrefix${pprint.PPrinter.BlackWhite(caze)}",
           { () =>
+            // NOTE: the recipe is only rendered if there is a unique id to
+            // record it against.
             TestExecutionListenerCapturingUniqueIds.uniqueId.ifPresent(
               uniqueId =>
                 JUnit5ReplayStorage.jUnit5ReplayStorage.recordUniqueId(
                   uniqueId.toString,
-                  recipe
+                  context.recipe
                 )
             )
 
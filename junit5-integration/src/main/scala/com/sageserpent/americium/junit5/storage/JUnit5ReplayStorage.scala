@@ -1,17 +1,55 @@
 package com.sageserpent.americium.junit5.storage
 
 import com.google.common.hash.Hashing as GuavaHashing
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.sageserpent.americium.generation.JavaPropertyNames.{
+  replayWriteBehindJavaProperty,
   runDatabaseJavaProperty,
   temporaryDirectoryJavaProperty
 }
 import com.sageserpent.americium.generation.SupplyToSyntaxSkeletalImplementation.runDatabaseDefault
-import com.sageserpent.americium.storage.FileBasedStorage
+import com.sageserpent.americium.storage.{
+  EvictionPolicy,
+  FileBasedStorage,
+  StorageBackend,
+  StorageStatistics
+}
+import com.typesafe.scalalogging.StrictLogging
+
+import _root_.java.util.concurrent.atomic.AtomicBoolean
+import _root_.java.util.concurrent.{
+  ConcurrentHashMap,
+  Executors,
+  ScheduledExecutorService,
+  TimeUnit
+}
+import scala.jdk.CollectionConverters.*
 
 object JUnit5ReplayStorage {
-  val jUnit5ReplayStorage: JUnit5ReplayStorage = new JUnit5ReplayStorage(
-    storagePath
-  )
+  val replayWriteBehindMillisecondsDefault = 100L
+
+  @volatile private var jUnit5ReplayStorageIsCreated = false
+
+  lazy val jUnit5ReplayStorage: JUnit5ReplayStorage = {
+    val result = new JUnit5ReplayStorage(
+      storagePath,
+      writeBehindMilliseconds = Option(
+        System.getProperty(replayWriteBehindJavaProperty)
+      ).fold(ifEmpty = replayWriteBehindMillisecondsDefault)(_.toLong),
+      storageBackend = StorageBackend.selectedForSharedStorage()
+    )
+
+    jUnit5ReplayStorageIsCreated = true
+
+    result
+  }
+
+  /** Flushes [[jUnit5ReplayStorage]], but only if it has already been created;
+    * otherwise there can't be anything to flush, and creating it would set up
+    * storage for no reason.
+    */
+  def flushIfCreated(): Unit =
+    if (jUnit5ReplayStorageIsCreated) jUnit5ReplayStorage.flush()
 
   private[storage] def storagePath: os.Path = {
     val tempDir = Option(System.getProperty(temporaryDirectoryJavaProperty))
@@ -28,25 +66,52 @@ object JUnit5ReplayStorage {
   }
 }
 
-class JUnit5ReplayStorage(baseDir: os.Path) extends FileBasedStorage {
+/** Records the recipe for each unique id of a trial, so that it can be
+  * replayed.
+  *
+  * @param writeBehindMilliseconds
+  *   If zero, each recipe is written through to storage before
+  *   {@code recordUniqueId} returns. Otherwise recipes are held in memory and
+  *   written in batches by a background thread at this interval, when
+  *   {@code flush} or {@code close} is called, and at JVM shutdown; this trades
+  *   the durability of the most recent recipes should the JVM be killed for not
+  *   having a filesystem round-trip per trial on the test thread.
+  * @note
+  *   Call {@code close} when done with an instance that writes behind, so that
+  *   its background thread and shutdown hook don't outlive it.
+  */
+class JUnit5ReplayStorage(
+    baseDir: os.Path,
+    writeBehindMilliseconds: Long = 0L,
+    storageBackend: StorageBackend = StorageBackend.selected(),
+    evictionPolicy: EvictionPolicy = EvictionPolicy.configured(),
+    sweepLegacyFiles: Boolean = FileBasedStorage.legacyFilesAreToBeSwept()
+) extends FileBasedStorage
+    with AutoCloseable
+    with StrictLogging {
+
+  require(0L <= writeBehindMilliseconds)
 
   type Key = String
 
   override protected val storageDirectory: os.Path = baseDir / "junit5-replay"
 
-  def recordUniqueId(uniqueId: Key, recipe: String): Unit = {
-    atomicWrite(uniqueId, recipe)
-  }
+  private val replayStorage = storageBackend.storageFor(
+    storageDirectory / storageBackend.name,
+    evictionPolicy
+  )
 
-  def recipeFromUniqueId(uniqueId: Key): Option[String] = {
-    try {
-      Some(atomicRead(uniqueId))
-    } catch {
-      case _: java.nio.file.NoSuchFileException => None
-    }
-  }
+  // NOTE: recipes are recorded via the storage backend; the file per unique id
+  // inherited from `FileBasedStorage` is only read from, as a fallback for
+  // recipes recorded by earlier versions. If `sweepLegacyFiles` is set, those
+  // files are swept for eviction once, on the first write to storage.
+  private val legacyFilesAreSwept = new AtomicBoolean(false)
 
-  def filenameFor(uniqueId: Key): String = {
+  private def isLegacyFile(path: os.Path): Boolean =
+    path.last.startsWith("recipe-for-unique-id-hash-") &&
+      path.last.endsWith(".txt")
+
+  override protected def filenameFor(uniqueId: Key): String = {
     // Use a hash, because unique ids are full of interesting characters that
     // can't belong to filenames and also get far too long for OS limits.
     val hash = GuavaHashing
@@ -56,4 +121,138 @@ class JUnit5ReplayStorage(baseDir: os.Path) extends FileBasedStorage {
 
     s"recipe-for-unique-id-hash-$hash.txt"
   }
+
+  private def legacyRecipeFromUniqueId(uniqueId: Key): Option[String] =
+    Option
+      .when(storageBackend.usesTheFileSystem) {
+        try {
+          Some(atomicRead(uniqueId))
+        } catch {
+          case _: java.nio.file.NoSuchFileException => None
+        }
+      }
+      .flatten
+
+  private def sweepLegacyFilesOnce(): Unit =
+    if (
+      sweepLegacyFiles && storageBackend.usesTheFileSystem &&
+      legacyFilesAreSwept.compareAndSet(false, true)
+    )
+      FileBasedStorage.evictFiles(
+        storageDirectory,
+        evictionPolicy,
+        isLegacyFile
+      )
+
+  // NOTE: only the latest recipe for a unique id is worth writing, so pending
+  // recipes are coalesced by unique id.
+  private val pendingRecipesByUniqueId = new ConcurrentHashMap[Key, String]()
+
+  private val shutdownHook: Option[Thread] =
+    Option.when(0L < writeBehindMilliseconds)(new Thread(() => flush()))
+
+  private val writeBehindExecutor: Option[ScheduledExecutorService] =
+    shutdownHook.map { shutdownHook =>
+      val executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("trials-replay-write-behind-%d")
+          .build()
+      )
+
+      executor.scheduleWithFixedDelay(
+        () => flush(),
+        writeBehindMilliseconds,
+        writeBehindMilliseconds,
+        TimeUnit.MILLISECONDS
+      )
+
+      Runtime.getRuntime.addShutdownHook(shutdownHook)
+
+      executor
+    }
+
+  def recordUniqueId(uniqueId: Key, recipe: String): Unit =
+    if (writeBehindExecutor.isDefined)
+      pendingRecipesByUniqueId.put(uniqueId, recipe)
+    else {
+      replayStorage.put(uniqueId, recipe)
+      sweepLegacyFilesOnce()
+    }
+
+  /** @return
+    *   The size of the database, not counting any pending recipes.
+    */
+  def statistics(): StorageStatistics =
+    if (storageBackend.usesTheFileSystem)
+      replayStorage.statistics() + FileBasedStorage.statisticsOfFiles(
+        storageDirectory,
+        isLegacyFile
+      )
+    else replayStorage.statistics()
+
+  def recipeFromUniqueId(uniqueId: Key): Option[String] =
+    // NOTE: unlike recipe hashes, a unique id can be mapped to a new recipe
+    // by another JVM sharing the storage, so lookups are never cached.
+    Option(pendingRecipesByUniqueId.get(uniqueId)).orElse(
+      replayStorage
+        .get(uniqueId)
+        .orElse(legacyRecipeFromUniqueId(uniqueId))
+    )
+
+  /** Writes any pending recipes through to storage. */
+  def flush(): Unit = synchronized {
+    val pendingEntries = pendingRecipesByUniqueId
+      .entrySet()
+      .asScala
+      .map(entry => entry.getKey -> entry.getValue)
+      .toList
+
+    if (pendingEntries.nonEmpty) {
+      try {
+        replayStorage.putAll(pendingEntries)
+        sweepLegacyFilesOnce()
+        // NOTE: a recipe recorded for the same unique id in the meantime is
+        // left pending for the next flush.
+        pendingEntries.foreach { case (uniqueId, recipe) =>
+          pendingRecipesByUniqueId.remove(uniqueId, recipe)
+        }
+        logger.debug(s"Wrote ${pendingEntries.size} replay recipes in a batch.")
+      } catch {
+        case exception: Exception =>
+          logger.warn(
+            s"Failed to write ${pendingEntries.size} replay recipes, will retry.",
+            exception
+          )
+      }
+    }
+  }
+
+  /** Stops writing behind and writes any pending recipes through to storage.
+    * The instance can still be used afterwards, but writes will then be left
+    * pending until {@code flush} is called.
+    */
+  override def close(): Unit = {
+    writeBehindExecutor.foreach { executor =>
+      executor.shutdown()
+      executor.awaitTermination(Long.MaxValue, TimeUnit.MILLISECONDS)
+    }
+
+    flush()
+
+    shutdownHook.foreach { shutdownHook =>
+      try Runtime.getRuntime.removeShutdownHook(shutdownHook)
+      catch {
+        // NOTE: the JVM is already shutting down, so the hook will run anyway;
+        // that's harmless, as there is nothing left pending.
+        case _: IllegalStateException =>
+      }
+    }
+  }
+
+  override def reset(): Unit = synchronized {
+    pendingRecipesByUniqueId.clear()
+    replayStorage.reset()
+    if (storageBackend.usesTheFileSystem) super.reset()
+  }
 }
@@ -0,0 +1,135 @@
+package com.sageserpent.americium.junit5.storage
+
+import com.google.common.hash.Hashing as GuavaHashing
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.util.Using
+
+class JUnit5ReplayStorageSpec extends AnyFlatSpec with Matchers {
+  behavior of "JUnit5ReplayStorage"
+
+  it should "write recipes through immediately by default" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    new JUnit5ReplayStorage(baseDir).recordUniqueId("[id]", "recipe")
+
+    new JUnit5ReplayStorage(baseDir).recipeFromUniqueId(
+      "[id]"
+    ) shouldBe Some("recipe")
+  }
+
+  it should "yield recipes that are yet to be written behind" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    // Use an interval long enough that there won't be a background flush.
+    Using.resource(
+      new JUnit5ReplayStorage(baseDir, writeBehindMilliseconds = 1000000L)
+    ) { storage =>
+      storage.recordUniqueId("[id]", "first recipe")
+      storage.recordUniqueId("[id]", "second recipe")
+
+      storage.recipeFromUniqueId("[id]") shouldBe Some("second recipe")
+      new JUnit5ReplayStorage(baseDir).recipeFromUniqueId("[id]") shouldBe None
+
+      storage.flush()
+
+      new JUnit5ReplayStorage(baseDir).recipeFromUniqueId(
+        "[id]"
+      ) shouldBe Some("second recipe")
+    }
+  }
+
+  it should "write pending recipes through when closed" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    Using.resource(
+      new JUnit5ReplayStorage(baseDir, writeBehindMilliseconds = 1000000L)
+    ) { storage =>
+      storage.recordUniqueId("[id]", "recipe")
+
+      new JUnit5ReplayStorage(baseDir).recipeFromUniqueId("[id]") shouldBe None
+    }
+
+    new JUnit5ReplayStorage(baseDir).recipeFromUniqueId(
+      "[id]"
+    ) shouldBe Some("recipe")
+  }
+
+  it should "write recipes behind in the background" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    Using.resource(
+      new JUnit5ReplayStorage(baseDir, writeBehindMilliseconds = 10L)
+    ) { storage =>
+      (1 to 100).foreach(i => storage.recordUniqueId(s"[id-$i]", s"recipe$i"))
+
+      val reader = new JUnit5ReplayStorage(baseDir)
+
+      val deadline = System.currentTimeMillis() + 10000L
+
+      def allRecipesAreWritten: Boolean =
+        (1 to 100).forall(i => reader.recipeFromUniqueId(s"[id-$i]").isDefined)
+
+      while (!allRecipesAreWritten && System.currentTimeMillis() < deadline)
+        Thread.sleep(10L)
+
+      (1 to 100).foreach { i =>
+        reader.recipeFromUniqueId(s"[id-$i]") shouldBe Some(s"recipe$i")
+      }
+    }
+  }
+
+  it should "see recipes recorded for the same unique id by another instance" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    val storage = new JUnit5ReplayStorage(baseDir)
+
+    storage.recordUniqueId("[id]", "first recipe")
+
+    storage.recipeFromUniqueId("[id]") shouldBe Some("first recipe")
+
+    // Stand in for another JVM sharing the same storage...
+    new JUnit5ReplayStorage(baseDir).recordUniqueId("[id]", "second recipe")
+
+    storage.recipeFromUniqueId("[id]") shouldBe Some("second recipe")
+  }
+
+  it should "discard pending recipes on reset" in {
+    Using.resource(
+      new JUnit5ReplayStorage(
+        os.temp.dir(prefix = "americium-test-"),
+        writeBehindMilliseconds = 1000000L
+      )
+    ) { storage =>
+      storage.recordUniqueId("[id]", "recipe")
+
+      storage.reset()
+
+      storage.recipeFromUniqueId("[id]") shouldBe None
+    }
+  }
+
+  it should "fall back to recipes recorded by earlier versions" in {
+    val baseDir = os.temp.dir(prefix = "americium-test-")
+
+    val uniqueId = "[engine:junit-jupiter]/[class:Foo]/[test-template:bar()]"
+
+    val hash =
+      GuavaHashing.murmur3_128().hashUnencodedChars(uniqueId).toString
+
+    os.write(
+      baseDir / "junit5-replay" / s"recipe-for-unique-id-hash-$hash.txt",
+      "legacy recipe",
+      createFolders = true
+    )
+
+    val storage = new JUnit5ReplayStorage(baseDir)
+
+    storage.recipeFromUniqueId(uniqueId) shouldBe Some("legacy recipe")
+
+    storage.recordUniqueId(uniqueId, "recipe")
+
+    storage.recipeFromUniqueId(uniqueId) shouldBe Some("recipe")
+  }
+}
@@ -0,0 +1,17 @@
+package com.sageserpent.americium.utilities
+
+object Mixing {
+
+  /** The finalisation step from MurmurHash3's 64-bit variant; each bit of
+    * {@code word} affects every bit of the result.
+    */
+  def mixed(word: Long): Long = {
+    var result = word
+    result ^= result >>> 33
+    result *= 0xff51afd7ed558ccdL
+    result ^= result >>> 33
+    result *= 0xc4ceb9fe1a85ec53L
+    result ^= result >>> 33
+    result
+  }
+}
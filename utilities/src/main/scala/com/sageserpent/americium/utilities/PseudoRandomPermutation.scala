@@ -0,0 +1,72 @@
+package com.sageserpent.americium.utilities
+
+import com.sageserpent.americium.utilities.Mixing.mixed
+
+/** Represents a pseudo-random permutation of the integers from zero to one
+  * less than some exclusive limit, computed on demand in constant memory.
+  *
+  * The permutation is a keyed Feistel network over the smallest domain of an
+  * even number of bits that covers the range, restricted to the range by
+  * cycle-walking; the result is then rotated through the range by a random
+  * offset, so that the item at any given position is uniformly distributed.
+  *
+  * @note
+  *   This is not guaranteed to be able to yield *every* permutation, so prefer
+  *   [[RandomEnrichment.RichRandom.buildRandomSequenceOfDistinctIntegersFromZeroToOneLessThan]]
+  *   when that matters; this is intended for when a fair random ordering is all
+  *   that is needed.
+  */
+final class PseudoRandomPermutation(
+    val exclusiveLimit: Int,
+    key: Long,
+    offset: Int
+) {
+  require(0 <= exclusiveLimit)
+  require(0 == exclusiveLimit || (0 until exclusiveLimit).contains(offset))
+
+  private val numberOfRounds = 4
+
+  private val halfWidth = {
+    val numberOfBitsForLimit =
+      Integer.SIZE - Integer.numberOfLeadingZeros((exclusiveLimit - 1).max(1))
+
+    (1 + numberOfBitsForLimit) / 2
+  }
+
+  private val halfMask = (1L << halfWidth) - 1
+
+  /** @param position
+    *   Must range from 0 to one less than `exclusiveLimit`.
+    * @return
+    *   The integer at `position` in the permutation.
+    */
+  def apply(position: Int): Int = {
+    require(0 <= position && position < exclusiveLimit)
+
+    // NOTE: the Feistel network is a bijection over its entire domain, so
+    // repeatedly applying it from a position within the range must eventually
+    // come back into the range.
+    var candidate = encrypted(position)
+    while (exclusiveLimit <= candidate) candidate = encrypted(candidate)
+
+    ((candidate + offset) % exclusiveLimit).toInt
+  }
+
+  def iterator: Iterator[Int] = Iterator.range(0, exclusiveLimit).map(apply)
+
+  private def encrypted(value: Long): Long = {
+    var left  = value >>> halfWidth
+    var right = value & halfMask
+    var round = 0
+
+    while (numberOfRounds > round) {
+      val roundKey = key + round * 0x9e3779b97f4a7c15L
+      val newRight = left ^ (mixed(right ^ roundKey) & halfMask)
+      left = right
+      right = newRight
+      round += 1
+    }
+
+    (left << halfWidth) | right
+  }
+}
@@ -1,13 +1,12 @@
 package com.sageserpent.americium.utilities
 
 import scala.annotation.tailrec
+import scala.collection.mutable
 import scala.language.postfixOps
 import scala.util.Random
 
 trait RandomEnrichment {
   implicit class RichRandom(random: Random) {
-    // TODO - throw all this rubbish out and use reservoir sampling!
-
     def chooseAnyNumberFromZeroToOneLessThan[X: Numeric](
         exclusiveLimit: X
     ): X = {
@@ -46,12 +45,25 @@ trait RandomEnrichment {
         }
       }
 
+      // NOTE: the lazy list is evaluated at most once per element, strictly in
+      // order, so each state of the range of slots is only filled from once.
       chooseAndRecordUniqueItems(
         exclusiveLimit,
-        RangeOfSlots.allSlotsAreVacant(exclusiveLimit)
+        RangeOfSlots.allSlotsAreVacantMutably(exclusiveLimit)
       )
     }
 
+    // Unlike the sequence above, this doesn't allocate anything as it is
+    // traversed, but can't be relied on to yield every possible permutation.
+    def buildPseudoRandomPermutationOfIntegersFromZeroToOneLessThan(
+        exclusiveLimit: Int
+    ): PseudoRandomPermutation =
+      new PseudoRandomPermutation(
+        exclusiveLimit,
+        key = random.nextLong(),
+        offset = if (0 < exclusiveLimit) random.nextInt(exclusiveLimit) else 0
+      )
+
     def buildRandomSequenceOfDistinctCandidatesChosenFrom[X](
         candidates: Iterable[X]
     ): Seq[X] = {
@@ -98,83 +110,75 @@ trait RandomEnrichment {
         candidates: Iterable[X],
         numberToChoose: Int
     ): Seq[X] = {
-      require(numberToChoose <= candidates.size)
+      require(0 <= numberToChoose)
 
-      buildRandomSequenceOfDistinctCandidatesChosenFrom(candidates).take(
-        numberToChoose
+      val reservoir = sampleReservoir(candidates.iterator, numberToChoose)
+
+      require(
+        numberToChoose == reservoir.length,
+        s"Expected at least $numberToChoose candidates, but there are only ${reservoir.length}."
       )
+
+      // Reservoir sampling chooses a uniformly random subset of the
+      // candidates, but the slot each one ends up in is biased towards the
+      // order of the candidates, so shuffle them in place.
+      for (slot <- reservoir.indices.reverse) {
+        val swappedSlot = random.nextInt(1 + slot)
+        val candidate   = reservoir(slot)
+        reservoir(slot) = reservoir(swappedSlot)
+        reservoir(swappedSlot) = candidate
+      }
+
+      reservoir.toSeq
     }
 
     def chooseOneOf[X](candidates: Iterable[X]): X = {
-      // How does this algorithm work? It is a generalisation of the old trick
-      // of choosing an item from a sequence working down the sequence,
-      // either picking the head or recursing on to the tail of the sequence.
-      // The probability of picking the head at each stage of recursion
-      // increases in such a way that the cumulative product of the failure to
-      // pick probabilities and the final successful pick probability
-      // always comes out to be the same. That's the standard algorithm, the
-      // generalisation here is to pick blocks rather than single items,
-      // then to pick an exemplar from the chosen block as a final step. The
-      // block sizes go up geometrically, so the algorithm gets greedier as it
-      // carries
-      // on through a potentially very large sequence. The point of this is to
-      // avoid converting all of 'candidates' into a whopping great array-backed
-      // data structure to avoid overly large memory allocations. When reading
-      // this code, bear in mind that the algorithm actually traverses the
-      // sequence from back to front - the blocks and their lazily-evaluated
-      // exemplars are built up in forward order but picked from in reverse
-      // order.
-      @scala.annotation.tailrec
-      def chooseExemplarsFromCandidateBlocks(
-          candidates: Iterable[X],
-          blockSize: Int,
-          cumulativeNumberOfCandidatesPreviouslySeen: Int,
-          exemplarTuples: List[(() => X, Int, Int)]
-      ): List[(() => X, Int, Int)] = {
-        val (candidateBlock, remainingCandidates) = candidates splitAt blockSize
-
-        if (candidateBlock isEmpty) exemplarTuples
-        else {
-          val candidateBlockSize = candidateBlock size
-          val exemplar           = () =>
-            buildRandomSequenceOfDistinctCandidatesChosenFrom(
-              candidateBlock
-            ).head
-
-          chooseExemplarsFromCandidateBlocks(
-            remainingCandidates,
-            blockSize * 7 / 6,
-            candidateBlockSize + cumulativeNumberOfCandidatesPreviouslySeen,
-            (
-              exemplar,
-              candidateBlockSize,
-              cumulativeNumberOfCandidatesPreviouslySeen
-            ) :: exemplarTuples
-          )
-        }
-      }
+      val reservoir = sampleReservoir(candidates.iterator, 1)
+
+      require(reservoir.nonEmpty, "Expected at least one candidate.")
+
+      reservoir.head
+    }
 
-      val exemplars =
-        chooseExemplarsFromCandidateBlocks(candidates, 100, 0, List.empty)
-
-      @scala.annotation.tailrec
-      def chooseASingleExemplar(exemplars: List[(() => X, Int, Int)]): X =
-        exemplars match {
-          case List((exemplar, _, _)) => exemplar()
-          case (
-                exemplar,
-                blockSize,
-                cumulativeNumberOfCandidatesPreviouslySeen
-              ) :: remainingExemplars =>
-            val numberOfCandidates =
-              blockSize + cumulativeNumberOfCandidatesPreviouslySeen
-            if (chooseAnyNumberFromOneTo(numberOfCandidates) <= blockSize)
-              exemplar()
-            else
-              chooseASingleExemplar(remainingExemplars)
+    // This is Li's 'Algorithm L': the reservoir starts off with the leading
+    // candidates, then each subsequent replacement is made after skipping a
+    // geometrically-distributed number of candidates, so that only a
+    // logarithmic number of random draws are made. The candidates are
+    // traversed just once and are never held in memory beyond the reservoir.
+    // If there are fewer candidates than the size of the reservoir, it is
+    // truncated to hold just them.
+    private def sampleReservoir[X](
+        candidates: Iterator[X],
+        reservoirSize: Int
+    ): mutable.ArrayBuffer[X] = {
+      val reservoir = mutable.ArrayBuffer.empty[X]
+
+      while (reservoirSize > reservoir.length && candidates.hasNext)
+        reservoir += candidates.next()
+
+      if (0 < reservoirSize) {
+        // NOTE: `nextDouble` can yield zero, but never one.
+        def logarithmOfUniformDraw(): Double = math.log(1 - random.nextDouble())
+
+        var weight = math.exp(logarithmOfUniformDraw() / reservoirSize)
+
+        while (candidates.hasNext) {
+          var numberToSkip =
+            math.floor(logarithmOfUniformDraw() / math.log(1 - weight)).toLong
+
+          while (0 < numberToSkip && candidates.hasNext) {
+            candidates.next()
+            numberToSkip -= 1
+          }
+
+          if (candidates.hasNext) {
+            reservoir(random.nextInt(reservoirSize)) = candidates.next()
+            weight *= math.exp(logarithmOfUniformDraw() / reservoirSize)
+          }
         }
+      }
 
-      chooseASingleExemplar(exemplars)
+      reservoir
     }
 
     def pickAlternatelyFrom[X](sequences: Iterable[Iterable[X]]): LazyList[X] =
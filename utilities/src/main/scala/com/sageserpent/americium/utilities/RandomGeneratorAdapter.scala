@@ -0,0 +1,80 @@
+package com.sageserpent.americium.utilities
+
+import _root_.java.util.Random as JavaRandom
+import _root_.java.util.random.RandomGenerator
+import scala.util.Random
+
+object RandomGeneratorAdapter {
+
+  /** @return
+    *   A [[Random]] that draws from {@code randomGenerator}, so that
+    *   [[RandomEnrichment.RichRandom]] can be used with any algorithm.
+    * @note
+    *   A legacy [[JavaRandom]] is used directly, so that it yields exactly the
+    *   same sequences as it would do via a [[Random]] built from the same seed.
+    */
+  def asScalaRandom(randomGenerator: RandomGenerator): Random =
+    randomGenerator match {
+      case javaRandom: JavaRandom => new Random(javaRandom)
+      case _ => new Random(new RandomGeneratorAdapter(randomGenerator))
+    }
+}
+
+// Presents an arbitrary random generator as a legacy `java.util.Random`, as
+// that is what `scala.util.Random` wraps. Every method that would otherwise
+// draw on the superclass' own seed is overridden, so none of its atomic
+// updates take place.
+final class RandomGeneratorAdapter(private var randomGenerator: RandomGenerator)
+    extends JavaRandom {
+  require(null != randomGenerator)
+
+  // Switches to drawing from `randomGenerator`, so that this adapter and
+  // anything wrapping it can be reused rather than allocated afresh.
+  def drawFrom(randomGenerator: RandomGenerator): Unit = {
+    require(null != randomGenerator)
+
+    this.randomGenerator = randomGenerator
+  }
+
+  override def setSeed(seed: Long): Unit =
+    // NOTE: the superclass constructor calls this before `randomGenerator` is
+    // set, so that call has to be tolerated.
+    if (null != randomGenerator)
+      throw new UnsupportedOperationException(
+        "The seed of an adapted random generator can't be changed."
+      )
+
+  override protected def next(bits: Int): Int =
+    randomGenerator.nextInt() >>> (Integer.SIZE - bits)
+
+  override def nextInt(): Int = randomGenerator.nextInt()
+
+  override def nextInt(bound: Int): Int = randomGenerator.nextInt(bound)
+
+  override def nextInt(origin: Int, bound: Int): Int =
+    randomGenerator.nextInt(origin, bound)
+
+  override def nextLong(): Long = randomGenerator.nextLong()
+
+  override def nextLong(bound: Long): Long = randomGenerator.nextLong(bound)
+
+  override def nextLong(origin: Long, bound: Long): Long =
+    randomGenerator.nextLong(origin, bound)
+
+  override def nextBoolean(): Boolean = randomGenerator.nextBoolean()
+
+  override def nextFloat(): Float = randomGenerator.nextFloat()
+
+  override def nextDouble(): Double = randomGenerator.nextDouble()
+
+  override def nextDouble(bound: Double): Double =
+    randomGenerator.nextDouble(bound)
+
+  override def nextDouble(origin: Double, bound: Double): Double =
+    randomGenerator.nextDouble(origin, bound)
+
+  override def nextGaussian(): Double = randomGenerator.nextGaussian()
+
+  override def nextBytes(bytes: Array[Byte]): Unit =
+    randomGenerator.nextBytes(bytes)
+}
@@ -1,5 +1,7 @@
 package com.sageserpent.americium.utilities
 
+import scala.collection.mutable
+
 /** Represents a range of slots, where each slot is either vacant or occupied by
   * an integer whose value corresponds to the slot position, taken
   * zero-relative.
@@ -32,6 +34,142 @@ trait RangeOfSlots {
 }
 
 object RangeOfSlots {
+
+  /** Like [[allSlotsAreVacant]], but the slots are tracked in place by a
+    * Fenwick tree over a primitive array of the number of filled slots, so
+    * filling a slot doesn't allocate anything.
+    *
+    * @note
+    *   Filling a slot *mutates* the instance and yields it back, so this must
+    *   only be used where each instance is filled from at most once - in other
+    *   words, where the persistence of [[allSlotsAreVacant]] isn't needed.
+    * @note
+    *   The Fenwick tree takes space proportional to the number of slots, so
+    *   it is only built once a sizeable fraction of the slots have been
+    *   filled; until then, the slots are tracked by the persistent
+    *   implementation. This keeps filling just a few slots out of a great many
+    *   cheap.
+    */
+  def allSlotsAreVacantMutably(numberOfSlots: Int): RangeOfSlots = {
+    require(0 <= numberOfSlots)
+
+    new RangeOfSlots {
+      // NOTE: while this is defined, the slots are tracked persistently and
+      // `filledSlotCounts` isn't allocated yet.
+      private var persistentRangeOfSlots: Option[RangeOfSlots] = Some(
+        allSlotsAreVacant(numberOfSlots)
+      )
+
+      private val slotsFilledPersistently = mutable.ArrayBuilder.make[Int]
+
+      // NOTE: this is one-relative, as is usual for a Fenwick tree; each
+      // element holds the number of filled slots in the block of slots ending
+      // at its position, the block's size being the position's lowest set bit.
+      private var filledSlotCounts: Array[Int] = Array.emptyIntArray
+
+      private var numberOfFilledSlotsSoFar = 0
+
+      override def fillVacantSlotAtIndex(
+          indexOfVacantSlotAsCountedByVacanciesOnly: Int
+      ): (Int, RangeOfSlots) = {
+        require(0 <= indexOfVacantSlotAsCountedByVacanciesOnly)
+        require(indexOfVacantSlotAsCountedByVacanciesOnly < numberOfVacantSlots)
+
+        val filledSlot = persistentRangeOfSlots match {
+          case Some(rangeOfSlots) =>
+            val (filledSlot, rangeOfSlotsWithFilledSlot) =
+              rangeOfSlots.fillVacantSlotAtIndex(
+                indexOfVacantSlotAsCountedByVacanciesOnly
+              )
+
+            slotsFilledPersistently += filledSlot
+
+            if (
+              numberOfSlots <= numberOfSlotsPerFilledSlotForFenwickTree.toLong *
+                (1 + numberOfFilledSlotsSoFar)
+            ) {
+              switchToFenwickTree()
+            } else persistentRangeOfSlots = Some(rangeOfSlotsWithFilledSlot)
+
+            filledSlot
+
+          case None =>
+            fillVacantSlotInFenwickTree(
+              indexOfVacantSlotAsCountedByVacanciesOnly
+            )
+        }
+
+        numberOfFilledSlotsSoFar += 1
+
+        filledSlot -> this
+      }
+
+      private def switchToFenwickTree(): Unit = {
+        filledSlotCounts = new Array[Int](1 + numberOfSlots)
+
+        slotsFilledPersistently.result().foreach { filledSlot =>
+          filledSlotCounts(1 + filledSlot) = 1
+        }
+
+        slotsFilledPersistently.clear()
+
+        // Build the tree in place in linear time by pushing each block's count
+        // up into the enclosing block.
+        for (position <- 1 to numberOfSlots) {
+          val enclosingPosition = position + (position & -position)
+          if (enclosingPosition <= numberOfSlots)
+            filledSlotCounts(enclosingPosition) += filledSlotCounts(position)
+        }
+
+        persistentRangeOfSlots = None
+      }
+
+      private def fillVacantSlotInFenwickTree(
+          indexOfVacantSlotAsCountedByVacanciesOnly: Int
+      ): Int = {
+        // Descend the tree to find the greatest position whose preceding
+        // slots hold no more vacancies than the index; the slot following that
+        // position is the one to fill.
+        var position           = 0
+        var remainingVacancies = indexOfVacantSlotAsCountedByVacanciesOnly
+        var blockSize          = Integer.highestOneBit(numberOfSlots)
+
+        while (0 < blockSize) {
+          val candidatePosition = position + blockSize
+          if (candidatePosition <= numberOfSlots) {
+            val numberOfVacanciesInBlock =
+              blockSize - filledSlotCounts(candidatePosition)
+            if (numberOfVacanciesInBlock <= remainingVacancies) {
+              position = candidatePosition
+              remainingVacancies -= numberOfVacanciesInBlock
+            }
+          }
+          blockSize >>= 1
+        }
+
+        val filledSlot = position
+
+        var blockPosition = 1 + filledSlot
+        while (blockPosition <= numberOfSlots) {
+          filledSlotCounts(blockPosition) += 1
+          blockPosition += blockPosition & -blockPosition
+        }
+
+        filledSlot
+      }
+
+      override def numberOfVacantSlots: Int =
+        numberOfSlots - numberOfFilledSlotsSoFar
+
+      override def numberOfFilledSlots: Int = numberOfFilledSlotsSoFar
+    }
+  }
+
+  // NOTE: the Fenwick tree costs a primitive int per slot, whereas the
+  // persistent implementation costs several objects per filled slot, so the
+  // switch is made once the latter is about to cost as much as the former.
+  private[utilities] val numberOfSlotsPerFilledSlotForFenwickTree = 16
+
   def allSlotsAreVacant(numberOfSlots: Int): RangeOfSlots = {
     require(0 <= numberOfSlots)
 
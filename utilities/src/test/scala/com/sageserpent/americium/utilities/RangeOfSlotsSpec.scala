@@ -120,4 +120,120 @@ class RangeOfSlotsSpec extends AnyFlatSpec with Matchers {
     }
 
   }
+
+  "filling out vacant slots mutably" should "agree with filling out the persistent range of slots" in {
+    val randomBehaviour = new Random(2378L)
+
+    for (numberOfSlots <- (0 until 50) :+ 10000) for (_ <- 1 to 20) {
+      val vacantSlotIndices =
+        (numberOfSlots until 0 by -1).map(
+          randomBehaviour.chooseAnyNumberFromZeroToOneLessThan(_)
+        )
+
+      def filledSlots(allSlotsAreVacant: RangeOfSlots): Seq[Int] =
+        vacantSlotIndices
+          .scanLeft(-1 -> allSlotsAreVacant) {
+            case ((_, rangeOfSlots), vacantSlotIndex) =>
+              rangeOfSlots.fillVacantSlotAtIndex(vacantSlotIndex)
+          }
+          .tail
+          .map(_._1)
+
+      val mutablyFilledSlots =
+        filledSlots(RangeOfSlots.allSlotsAreVacantMutably(numberOfSlots))
+
+      mutablyFilledSlots shouldBe filledSlots(
+        RangeOfSlots.allSlotsAreVacant(numberOfSlots)
+      )
+
+      mutablyFilledSlots should contain theSameElementsAs (0 until numberOfSlots)
+    }
+  }
+
+  it should "agree with filling out the persistent range of slots either side of switching to a Fenwick tree" in {
+    val randomBehaviour = new Random(4509L)
+
+    import RangeOfSlots.numberOfSlotsPerFilledSlotForFenwickTree
+
+    for (
+      numberOfSlots <- Seq(1, 15, 16, 17, 31, 32, 33, 161, 1000, 1024, 4097)
+    ) {
+      // NOTE: the switch is made on filling this many slots.
+      val numberOfFillsToSwitchOver = Math
+        .ceil(numberOfSlots.toDouble / numberOfSlotsPerFilledSlotForFenwickTree)
+        .toInt
+
+      for (
+        numberOfFills <- (numberOfFillsToSwitchOver - 3 max 0) to
+          (numberOfFillsToSwitchOver + 3 min numberOfSlots);
+        _ <- 1 to 20
+      ) {
+        val mutableRangeOfSlots =
+          RangeOfSlots.allSlotsAreVacantMutably(numberOfSlots)
+
+        var persistentRangeOfSlots =
+          RangeOfSlots.allSlotsAreVacant(numberOfSlots)
+
+        for (_ <- 1 to numberOfFills) {
+          val numberOfVacantSlots = persistentRangeOfSlots.numberOfVacantSlots
+
+          // Favour the extremes, as these are where an off-by-one error in the
+          // descent of the Fenwick tree would show up.
+          val vacantSlotIndex =
+            randomBehaviour.chooseAnyNumberFromZeroToOneLessThan(3) match {
+              case 0 => 0
+              case 1 => numberOfVacantSlots - 1
+              case _ =>
+                randomBehaviour.chooseAnyNumberFromZeroToOneLessThan(
+                  numberOfVacantSlots
+                )
+            }
+
+          val (filledSlot, _) =
+            mutableRangeOfSlots.fillVacantSlotAtIndex(vacantSlotIndex)
+
+          val (expectedFilledSlot, rangeOfSlotsWithFilledSlot) =
+            persistentRangeOfSlots.fillVacantSlotAtIndex(vacantSlotIndex)
+
+          filledSlot shouldBe expectedFilledSlot
+
+          persistentRangeOfSlots = rangeOfSlotsWithFilledSlot
+
+          mutableRangeOfSlots.numberOfVacantSlots shouldBe persistentRangeOfSlots.numberOfVacantSlots
+          mutableRangeOfSlots.numberOfFilledSlots shouldBe persistentRangeOfSlots.numberOfFilledSlots
+        }
+      }
+    }
+  }
+
+  it should "be cheap when only a few slots are filled out of a great many" in {
+    val randomBehaviour = new Random(9123L)
+
+    // NOTE: a Fenwick tree for this many slots would need gigabytes.
+    val numberOfSlots = Int.MaxValue
+
+    val vacantSlotIndices =
+      (numberOfSlots until (numberOfSlots - 1000) by -1).map(
+        randomBehaviour.chooseAnyNumberFromZeroToOneLessThan(_)
+      )
+
+    val mutablyFilledSlots = vacantSlotIndices
+      .scanLeft(
+        -1 -> RangeOfSlots.allSlotsAreVacantMutably(numberOfSlots)
+      ) { case ((_, rangeOfSlots), vacantSlotIndex) =>
+        rangeOfSlots.fillVacantSlotAtIndex(vacantSlotIndex)
+      }
+      .tail
+      .map(_._1)
+
+    mutablyFilledSlots shouldBe vacantSlotIndices
+      .scanLeft(-1 -> RangeOfSlots.allSlotsAreVacant(numberOfSlots)) {
+        case ((_, rangeOfSlots), vacantSlotIndex) =>
+          rangeOfSlots.fillVacantSlotAtIndex(vacantSlotIndex)
+      }
+      .tail
+      .map(_._1)
+
+    mutablyFilledSlots.distinct should have size vacantSlotIndices.size
+  }
 }
@@ -5,6 +5,7 @@ import org.scalatest.Assertion
 import org.scalatest.flatspec.AnyFlatSpec
 import org.scalatest.matchers.should.Matchers
 
+import _root_.java.util.random.RandomGeneratorFactory
 import scala.collection.immutable
 import scala.collection.mutable.Map
 import scala.language.postfixOps
@@ -28,7 +29,93 @@ class RichRandomMiscellaneaSpec extends AnyFlatSpec with Matchers {
           upperBound
         )
       assert(chosenItemsViaAnotherWay.toSet == expectedRange.toSet)
+
+      val chosenItemsViaAPermutation =
+        random
+          .buildPseudoRandomPermutationOfIntegersFromZeroToOneLessThan(
+            upperBound
+          )
+          .iterator
+          .toSeq
+      assert(chosenItemsViaAPermutation.sorted == expectedRange)
+    }
+  }
+
+  it should "yield every ordering of a few integers when building pseudo-random permutations" in {
+    val random = new Random(3491)
+
+    val upperBound = 4
+
+    val numberOfTrials = 24000
+
+    val frequenciesByOrdering = Iterator
+      .continually(
+        random
+          .buildPseudoRandomPermutationOfIntegersFromZeroToOneLessThan(
+            upperBound
+          )
+          .iterator
+          .toSeq
+      )
+      .take(numberOfTrials)
+      .toSeq
+      .groupMapReduce(identity)(_ => 1)(_ + _)
+
+    frequenciesByOrdering.keySet shouldBe (0 until upperBound).permutations.toSet
+
+    // NOTE: the orderings aren't expected to be exactly uniform, just fair.
+    all(frequenciesByOrdering.values) should be > numberOfTrials / 48
+  }
+
+  it should "choose from a large lazily-produced sequence in a single pass" in {
+    val random = new Random(8734)
+
+    val numberOfCandidates = 10000000
+
+    var numberOfPasses = 0
+
+    val candidates = new Iterable[Int] {
+      override def iterator: Iterator[Int] = {
+        numberOfPasses += 1
+        Iterator.range(0, numberOfCandidates)
+      }
     }
+
+    val chosenItems = random.chooseSeveralOf(candidates, 5)
+
+    chosenItems.toSet should have size 5
+    all(chosenItems) should (be >= 0 and be < numberOfCandidates)
+
+    random.chooseOneOf(candidates) should (be >= 0 and be < numberOfCandidates)
+
+    numberOfPasses shouldBe 2
+
+    an[IllegalArgumentException] should be thrownBy random.chooseSeveralOf(
+      0 until 3,
+      4
+    )
+  }
+
+  it should "be able to draw from any random generator algorithm" in {
+    val seed = 7283L
+
+    val legacyRandom = RandomGeneratorAdapter.asScalaRandom(
+      RandomGeneratorFactory.of("Random").create(seed)
+    )
+
+    val reference = new Random(seed)
+
+    Seq.fill(100)(legacyRandom.nextInt(1000)) shouldBe Seq.fill(100)(
+      reference.nextInt(1000)
+    )
+
+    val random = RandomGeneratorAdapter.asScalaRandom(
+      RandomGeneratorFactory.of("L64X128MixRandom").create(seed)
+    )
+
+    random.chooseSeveralOf(0 until 20, 20) should contain theSameElementsAs (0 until 20)
+
+    an[UnsupportedOperationException] should be thrownBy random.setSeed(seed)
   }
 
   def commonTestStructureForTestingOfChoosingSeveralItems(